@@ -0,0 +1,100 @@
+package boo.bench;
+
+import boo.misc.DialogBox;
+
+import javafx.application.Platform;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import javafx.fxml.FXMLLoader;
+import javafx.scene.Node;
+import javafx.scene.control.Label;
+import javafx.scene.image.Image;
+import javafx.scene.image.ImageView;
+import javafx.scene.image.WritableImage;
+import javafx.scene.layout.HBox;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how many dialog boxes can be created per second.
+ * The baseline parses an FXML layout for every dialog box and flips Boo's replies afterwards, like DialogBox
+ * used to. The JavaFX toolkit is started once, so a display is needed to run this benchmark.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class DialogBoxBenchmark {
+    private static final byte[] DIALOG_FXML = ("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+            + "<?import javafx.geometry.*?>\n"
+            + "<?import javafx.scene.control.*?>\n"
+            + "<?import javafx.scene.image.*?>\n"
+            + "<?import javafx.scene.layout.*?>\n"
+            + "<HBox alignment=\"TOP_RIGHT\" prefWidth=\"400.0\" xmlns:fx=\"http://javafx.com/fxml/1\">\n"
+            + "  <children>\n"
+            + "    <Label fx:id=\"dialog\" minHeight=\"-Infinity\" text=\"Label\" wrapText=\"true\">\n"
+            + "      <padding><Insets bottom=\"6.0\" left=\"6.0\" right=\"6.0\" top=\"6.0\" /></padding>\n"
+            + "    </Label>\n"
+            + "    <ImageView fx:id=\"displayPicture\" fitHeight=\"99.0\" fitWidth=\"99.0\" pickOnBounds=\"true\" "
+            + "preserveRatio=\"true\" />\n"
+            + "  </children>\n"
+            + "</HBox>\n").getBytes(StandardCharsets.UTF_8);
+    private static final String MESSAGE = "New task? On it. Boo has added this task:\n  [T][ ] read book\n";
+
+    private Image image;
+
+    /**
+     * Starts the JavaFX toolkit, which images and controls need.
+     */
+    @Setup(Level.Trial)
+    public void startToolkit() {
+        try {
+            Platform.startup(() -> {
+            });
+        } catch (IllegalStateException e) {
+            // The toolkit was already started by an earlier trial in this fork
+        }
+        image = new WritableImage(99, 99);
+    }
+
+    @Benchmark
+    public DialogBox createDialogs() {
+        DialogBox.getUserDialog(MESSAGE, image);
+        return DialogBox.getBooDialog(MESSAGE, image);
+    }
+
+    @Benchmark
+    public HBox fxmlBaseline() throws IOException {
+        loadDialog();
+        HBox booDialog = loadDialog();
+        ObservableList<Node> children = FXCollections.observableArrayList(booDialog.getChildren());
+        Collections.reverse(children);
+        booDialog.getChildren().setAll(children);
+        return booDialog;
+    }
+
+    private HBox loadDialog() throws IOException {
+        FXMLLoader fxmlLoader = new FXMLLoader();
+        HBox dialog = fxmlLoader.load(new ByteArrayInputStream(DIALOG_FXML));
+        ((Label) fxmlLoader.getNamespace().get("dialog")).setText(MESSAGE);
+        ((ImageView) fxmlLoader.getNamespace().get("displayPicture")).setImage(image);
+        return dialog;
+    }
+}
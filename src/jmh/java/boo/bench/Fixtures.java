@@ -0,0 +1,43 @@
+package boo.bench;
+
+import boo.misc.BooException;
+import boo.task.Deadline;
+import boo.task.Event;
+import boo.task.Task;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Contains the task lists that the benchmarks start from.
+ */
+final class Fixtures {
+    private static final LocalDateTime FIRST_DATE = LocalDateTime.of(2025, 1, 1, 0, 0);
+
+    private Fixtures() {
+    }
+
+    /**
+     * Returns an even mix of deadlines and events, spread over the days of a few years in a random order.
+     * Every task has a date, so a new todo is always placed first in the task list.
+     *
+     * @param count Number of tasks.
+     * @return Tasks in no particular order.
+     * @throws BooException If an event ends before it starts, which does not happen here.
+     */
+    static List<Task> createTasks(int count) throws BooException {
+        Random random = new Random(42);
+        List<Task> tasks = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            LocalDateTime date = FIRST_DATE.plusMinutes(random.nextInt(3 * 365 * 24 * 60));
+            if (i % 2 == 0) {
+                tasks.add(new Deadline("return book " + i, date));
+            } else {
+                tasks.add(new Event("project meeting " + i, date, date.plusHours(2)));
+            }
+        }
+        return tasks;
+    }
+}
@@ -0,0 +1,34 @@
+package boo.bench;
+
+import boo.misc.Storage;
+import boo.task.Task;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Represents a Storage that starts with the given tasks and never writes anything, so that benchmarks of the
+ * task list only measure the work done in memory.
+ */
+class NoOpStorage extends Storage {
+    private final List<Task> tasks;
+
+    NoOpStorage(List<Task> tasks) {
+        super("unused");
+        this.tasks = tasks;
+    }
+
+    @Override
+    public void saveTasksToFile(Collection<Task> tasks) {
+    }
+
+    @Override
+    public void saveChange(Change change, int taskId, Task task, Collection<Task> tasks) {
+    }
+
+    @Override
+    public List<Task> loadTasksFromFile() {
+        return new ArrayList<>(tasks);
+    }
+}
@@ -0,0 +1,52 @@
+package boo.bench;
+
+import boo.misc.BooException;
+import boo.misc.Parser;
+import boo.task.Task;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how long it takes to turn user input into tasks and dates.
+ * Parsing does not depend on the size of the task list, so there is no size parameter.
+ */
+@State(Scope.Benchmark)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ParserBenchmark {
+    @Benchmark
+    public Task parseTodo() throws BooException {
+        return Parser.parseTask("todo read book");
+    }
+
+    @Benchmark
+    public Task parseDeadline() throws BooException {
+        return Parser.parseTask("deadline return book /by 02/02/2025 1800");
+    }
+
+    @Benchmark
+    public Task parseEvent() throws BooException {
+        return Parser.parseTask("event project meeting /from 02/02/2025 1400 /to 02/02/2025 1600");
+    }
+
+    @Benchmark
+    public LocalDateTime parseDate() throws BooException {
+        return Parser.parseDateTime("02/02/2025");
+    }
+
+    @Benchmark
+    public LocalDateTime parseDateTime() throws BooException {
+        return Parser.parseDateTime("02/02/2025 1800");
+    }
+}
@@ -0,0 +1,86 @@
+package boo.bench;
+
+import boo.misc.BinaryStorage;
+import boo.misc.BooException;
+import boo.misc.Storage;
+import boo.task.Task;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Measures how long it takes to save and load the whole task list, in the text and the binary format.
+ */
+@State(Scope.Benchmark)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class StorageBenchmark {
+    @Param({"1000", "10000", "100000", "1000000"})
+    private int taskCount;
+
+    @Param({"text", "binary"})
+    private String format;
+
+    private Path directory;
+    private Storage storage;
+    private List<Task> tasks;
+
+    /**
+     * Creates the tasks and saves them once, so that there is a file to load.
+     *
+     * @throws IOException If the directory could not be created.
+     * @throws BooException If the tasks could not be saved.
+     */
+    @Setup(Level.Trial)
+    public void createStorage() throws IOException, BooException {
+        directory = Files.createTempDirectory("boo-bench");
+        storage = format.equals("binary")
+                ? new BinaryStorage(directory.resolve("Boo.bin").toString(), directory.resolve("Boo.txt").toString())
+                : new Storage(directory.resolve("Boo.txt").toString());
+        tasks = Fixtures.createTasks(taskCount);
+        storage.saveTasksToFile(tasks);
+    }
+
+    /**
+     * Deletes the saved files.
+     *
+     * @throws IOException If the files could not be deleted.
+     */
+    @TearDown(Level.Trial)
+    public void deleteStorage() throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    @Benchmark
+    public void saveTasksToFile() throws BooException {
+        storage.saveTasksToFile(tasks);
+    }
+
+    @Benchmark
+    public List<Task> loadTasksFromFile() throws BooException {
+        return storage.loadTasksFromFile();
+    }
+}
@@ -0,0 +1,130 @@
+package boo.bench;
+
+import boo.misc.BooException;
+import boo.misc.Storage;
+import boo.task.Task;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Measures how long it takes to load a task file in the text format.
+ * The baseline splits each line with regular expressions and formats every date back into a string before
+ * parsing it again, like the loader used to.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class StorageLoadBenchmark {
+    private static final DateTimeFormatter STORED_DATE_FORMAT = new DateTimeFormatterBuilder()
+            .parseCaseInsensitive()
+            .appendPattern("dd MMM yyyy h:mm a")
+            .toFormatter();
+    private static final DateTimeFormatter INPUT_DATE_FORMAT = DateTimeFormatter.ofPattern("dd/MM/yyyy HHmm");
+
+    @Param({"100000"})
+    private int taskCount;
+
+    private Path directory;
+    private Path filePath;
+
+    /**
+     * Writes a task file with an even mix of todos, deadlines and events.
+     *
+     * @throws IOException If the file could not be written.
+     */
+    @Setup(Level.Trial)
+    public void writeTaskFile() throws IOException {
+        directory = Files.createTempDirectory("boo-bench");
+        filePath = directory.resolve("Boo.txt");
+        StringBuilder content = new StringBuilder();
+        for (int i = 0; i < taskCount; i++) {
+            content.append("taskID: ").append(i + 1);
+            switch (i % 3) {
+            case 0:
+                content.append(" || Todo task || isDone: false || read book ").append(i);
+                break;
+            case 1:
+                content.append(" || Deadline task || isDone: true || return book ").append(i)
+                        .append(" (by: 02 Feb 2023 12:00 am)");
+                break;
+            default:
+                content.append(" || Event task || isDone: false || Netball ").append(i)
+                        .append(" (from: 29 Mar 2025 4:00 pm to: 29 Mar 2025 6:00 pm)");
+                break;
+            }
+            content.append('\n');
+        }
+        Files.writeString(filePath, content);
+    }
+
+    /**
+     * Deletes the task file.
+     *
+     * @throws IOException If the file could not be deleted.
+     */
+    @TearDown(Level.Trial)
+    public void deleteTaskFile() throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    @Benchmark
+    public List<Task> loadTasks() throws BooException {
+        return new Storage(filePath.toString()).loadTasksFromFile();
+    }
+
+    @Benchmark
+    public List<LocalDateTime> regexRoundTripBaseline() throws IOException {
+        List<LocalDateTime> dates = new ArrayList<>();
+        for (String line : Files.readAllLines(filePath)) {
+            String[] details = line.split("\\|\\|");
+            String taskType = details[1].split(" task")[0].trim();
+            Boolean.parseBoolean(details[2].split(":")[1].trim());
+            String description = details[3].trim();
+            if (taskType.equals("Deadline")) {
+                String[] parts = description.split(" \\(by: ");
+                dates.add(roundTrip(parts[1].replace(")", "").trim()));
+            } else if (taskType.equals("Event")) {
+                String[] parts = description.split(" \\(from: | to: ");
+                dates.add(roundTrip(parts[1].trim()));
+                dates.add(roundTrip(parts[2].replace(")", "").trim()));
+            }
+        }
+        return dates;
+    }
+
+    private static LocalDateTime roundTrip(String dateTime) {
+        String formatted = LocalDateTime.parse(dateTime, STORED_DATE_FORMAT).format(INPUT_DATE_FORMAT);
+        return LocalDateTime.parse(formatted, INPUT_DATE_FORMAT);
+    }
+}
@@ -0,0 +1,87 @@
+package boo.bench;
+
+import boo.misc.BooException;
+import boo.misc.Ui;
+import boo.task.Deadline;
+import boo.task.Task;
+import boo.task.TaskList;
+import boo.task.Todo;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the operations of a task list of a given size, without any saving.
+ * The size of the list stays the same throughout: each added task is deleted again, and each deleted task is
+ * added again.
+ */
+@State(Scope.Benchmark)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class TaskListBenchmark {
+    private static final LocalDateTime DEADLINE = LocalDateTime.of(2026, 6, 1, 12, 0);
+
+    @Param({"1000", "10000", "100000", "1000000"})
+    private int taskCount;
+
+    private TaskList taskList;
+    private int nextTaskId;
+
+    /**
+     * Fills the task list.
+     *
+     * @throws BooException If the task list could not be created.
+     */
+    @Setup(Level.Trial)
+    public void createTaskList() throws BooException {
+        taskList = new TaskList(new NoOpStorage(Fixtures.createTasks(taskCount)), new Ui());
+    }
+
+    private int nextTaskId() {
+        nextTaskId = nextTaskId % taskCount + 7919;
+        return nextTaskId % taskCount + 1;
+    }
+
+    @Benchmark
+    public String addTask() throws BooException {
+        taskList.addTask(new Todo("read book"));
+        return taskList.deleteTask("delete 1");
+    }
+
+    @Benchmark
+    public String deleteTask() throws BooException {
+        taskList.deleteTask("delete " + nextTaskId());
+        return taskList.addTask(new Deadline("return book", DEADLINE));
+    }
+
+    @Benchmark
+    public String markAsDone() throws BooException {
+        return taskList.markAsDone("mark " + nextTaskId());
+    }
+
+    @Benchmark
+    public String findTask() throws BooException {
+        return taskList.findTask("find book AND 42");
+    }
+
+    @Benchmark
+    public void getTasks(Blackhole blackhole) {
+        for (Task task : taskList.getTasks()) {
+            blackhole.consume(task);
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package boo.loadtest;
+
+import java.util.Arrays;
+
+/**
+ * Represents the latencies of one command verb, kept in full so that exact percentiles can be reported.
+ */
+class LatencyRecorder {
+    private long[] latencies = new long[1024];
+    private int count;
+
+    /**
+     * Records the latency of one command.
+     *
+     * @param nanos Latency in nanoseconds.
+     */
+    void record(long nanos) {
+        if (count == latencies.length) {
+            latencies = Arrays.copyOf(latencies, count * 2);
+        }
+        latencies[count++] = nanos;
+    }
+
+    /**
+     * Records every latency recorded by another recorder.
+     *
+     * @param other Recorder whose latencies are added.
+     */
+    void addAll(LatencyRecorder other) {
+        for (int i = 0; i < other.count; i++) {
+            record(other.latencies[i]);
+        }
+    }
+
+    int getCount() {
+        return count;
+    }
+
+    /**
+     * Returns the latencies at the given percentiles, in nanoseconds.
+     * The recorded latencies are sorted, so this is meant to be called once the run is over.
+     *
+     * @param percentiles Percentiles between 0 and 100.
+     * @return Latency at each percentile, or 0 if nothing was recorded.
+     */
+    long[] getPercentiles(double... percentiles) {
+        Arrays.sort(latencies, 0, count);
+        long[] values = new long[percentiles.length];
+        for (int i = 0; i < percentiles.length && count > 0; i++) {
+            int rank = (int) Math.ceil(percentiles[i] / 100 * count);
+            values[i] = latencies[Math.max(0, Math.min(count, rank) - 1)];
+        }
+        return values;
+    }
+}
@@ -0,0 +1,156 @@
+package boo.loadtest;
+
+import boo.Boo;
+import boo.misc.BinaryStorage;
+import boo.misc.BooException;
+import boo.misc.Storage;
+
+import com.sun.management.GarbageCollectionNotificationInfo;
+
+import java.io.IOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.stream.Stream;
+import javax.management.NotificationEmitter;
+import javax.management.openmbean.CompositeData;
+
+/**
+ * Drives a real Boo instance with a mixed workload of commands and reports how it holds up.
+ * Tasks are stored in a temporary directory with the same storage settings as the application.
+ *
+ * Run with "--commands=N --tasks=N --seed=N --report-every=N". The task list grows to about the given number
+ * of tasks and then stays around it, since adds turn into deletes once it is full.
+ * Every interval, the throughput, the garbage collection pauses and the size of the data files are printed.
+ * At the end, the p50/p99/p999 latency of each command verb is printed.
+ */
+public class LoadTest {
+    private final Workload workload;
+
+    private final Map<String, LatencyRecorder> latencies = new LinkedHashMap<>();
+    // Updated by the garbage collection notification threads
+    private volatile long gcPauseCount;
+    private volatile long gcPauseNanos;
+    private volatile long maxGcPauseNanos;
+
+    private LoadTest(long seed, int maxTasks) {
+        this.workload = new Workload(seed, maxTasks);
+        for (String verb : Workload.VERBS) {
+            latencies.put(verb, new LatencyRecorder());
+        }
+    }
+
+    /**
+     * Runs the load test.
+     *
+     * @param args Options in the form "--name=value".
+     */
+    public static void main(String[] args) throws IOException, BooException {
+        long commandCount = Long.parseLong(getOption(args, "commands", "1000000"));
+        int maxTasks = Integer.parseInt(getOption(args, "tasks", "10000"));
+        long seed = Long.parseLong(getOption(args, "seed", "42"));
+        long reportInterval = Long.parseLong(getOption(args, "report-every", "100000"));
+
+        Path directory = Files.createTempDirectory("boo-loadtest");
+        try {
+            new LoadTest(seed, maxTasks).run(directory, commandCount, reportInterval);
+        } finally {
+            deleteDirectory(directory);
+        }
+    }
+
+    private void run(Path directory, long commandCount, long reportInterval) throws BooException, IOException {
+        Storage storage = new BinaryStorage(directory.resolve("Boo.bin").toString(),
+                directory.resolve("Boo.txt").toString());
+        storage.enableWriteBehind(500, 100);
+        Boo boo = new Boo(storage);
+        listenForGcPauses();
+
+        System.out.printf("%10s %12s %10s %10s %12s %12s%n",
+                "seconds", "commands", "cmds/s", "gc pauses", "gc max ms", "file bytes");
+        long startTime = System.nanoTime();
+        long intervalStartTime = startTime;
+        long intervalGcPauses = 0;
+        for (long i = 1; i <= commandCount; i++) {
+            String verb = workload.nextVerb();
+            String input = workload.nextInput(verb);
+            long commandStartTime = System.nanoTime();
+            boo.getResponse(input);
+            long now = System.nanoTime();
+            latencies.get(verb).record(now - commandStartTime);
+
+            if (i % reportInterval == 0 || i == commandCount) {
+                long intervalCommands = i % reportInterval == 0 ? reportInterval : i % reportInterval;
+                System.out.printf("%10.1f %12d %10.0f %10d %12.1f %12d%n",
+                        (now - startTime) / 1e9, i, intervalCommands / ((now - intervalStartTime) / 1e9),
+                        gcPauseCount - intervalGcPauses, maxGcPauseNanos / 1e6, getDirectorySize(directory));
+                intervalStartTime = System.nanoTime();
+                intervalGcPauses = gcPauseCount;
+                maxGcPauseNanos = 0;
+            }
+        }
+        double seconds = (System.nanoTime() - startTime) / 1e9;
+        storage.flush();
+
+        System.out.printf("%nSustained throughput: %.0f commands/s over %.1f s%n", commandCount / seconds, seconds);
+        System.out.printf("GC pauses: %d, %.1f ms in total%n", gcPauseCount, gcPauseNanos / 1e6);
+        System.out.printf("Final data files: %d bytes, about %d tasks%n%n", getDirectorySize(directory),
+                workload.getTaskCount());
+        System.out.printf("%-10s %10s %10s %10s %10s %10s%n", "verb", "count", "p50 us", "p99 us", "p999 us",
+                "max us");
+        for (Map.Entry<String, LatencyRecorder> entry : latencies.entrySet()) {
+            LatencyRecorder recorder = entry.getValue();
+            long[] percentiles = recorder.getPercentiles(50, 99, 99.9, 100);
+            System.out.printf("%-10s %10d %10.1f %10.1f %10.1f %10.1f%n", entry.getKey(), recorder.getCount(),
+                    percentiles[0] / 1e3, percentiles[1] / 1e3, percentiles[2] / 1e3, percentiles[3] / 1e3);
+        }
+    }
+
+    private void listenForGcPauses() {
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            if (!(collector instanceof NotificationEmitter)) {
+                continue;
+            }
+            ((NotificationEmitter) collector).addNotificationListener((notification, handback) -> {
+                if (!notification.getType().equals(GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION)) {
+                    return;
+                }
+                GarbageCollectionNotificationInfo info = GarbageCollectionNotificationInfo.from(
+                        (CompositeData) notification.getUserData());
+                long pauseNanos = info.getGcInfo().getDuration() * 1_000_000;
+                synchronized (this) {
+                    gcPauseCount++;
+                    gcPauseNanos += pauseNanos;
+                    maxGcPauseNanos = Math.max(maxGcPauseNanos, pauseNanos);
+                }
+            }, null, null);
+        }
+    }
+
+    private static long getDirectorySize(Path directory) throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            return paths.filter(Files::isRegularFile).mapToLong(path -> path.toFile().length()).sum();
+        }
+    }
+
+    private static void deleteDirectory(Path directory) throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+
+    private static String getOption(String[] args, String name, String defaultValue) {
+        for (String arg : args) {
+            if (arg.startsWith("--" + name + "=")) {
+                return arg.substring(name.length() + 3);
+            }
+        }
+        return defaultValue;
+    }
+}
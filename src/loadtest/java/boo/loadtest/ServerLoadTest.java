@@ -0,0 +1,159 @@
+package boo.loadtest;
+
+import boo.misc.BooException;
+import boo.misc.Server;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+/**
+ * Drives a Boo server over localhost with many clients at once, each of them a different user, and reports how
+ * it holds up.
+ *
+ * Run with "--clients=N --commands=N --tasks=N --seed=N --max-users=N", where the number of commands and tasks
+ * are per client. A server with its own temporary data folder is started in this process, unless "--port=N"
+ * names a server that is already running. At the end, the total throughput and the p50/p99/p999 latency of each
+ * command verb, as seen by the clients, are printed.
+ */
+public class ServerLoadTest {
+
+    /**
+     * Runs the load test.
+     *
+     * @param args Options in the form "--name=value".
+     */
+    public static void main(String[] args) throws IOException, BooException, InterruptedException,
+            ExecutionException {
+        int clientCount = Integer.parseInt(getOption(args, "clients", "8"));
+        long commandCount = Long.parseLong(getOption(args, "commands", "100000"));
+        int maxTasks = Integer.parseInt(getOption(args, "tasks", "1000"));
+        long seed = Long.parseLong(getOption(args, "seed", "42"));
+        int maxUsers = Integer.parseInt(getOption(args, "max-users", "1000"));
+        String port = getOption(args, "port", null);
+
+        if (port != null) {
+            run(Integer.parseInt(port), clientCount, commandCount, maxTasks, seed);
+            return;
+        }
+        Path directory = Files.createTempDirectory("boo-server-loadtest");
+        Server server = new Server(directory, maxUsers);
+        try {
+            run(server.start(0), clientCount, commandCount, maxTasks, seed);
+        } finally {
+            server.stop();
+            deleteDirectory(directory);
+        }
+    }
+
+    private static void run(int port, int clientCount, long commandCount, int maxTasks, long seed)
+            throws InterruptedException, ExecutionException {
+        ExecutorService clients = Executors.newFixedThreadPool(clientCount);
+        List<Future<Map<String, LatencyRecorder>>> results = new ArrayList<>();
+        long startTime = System.nanoTime();
+        for (int i = 0; i < clientCount; i++) {
+            int client = i;
+            results.add(clients.submit(() -> runClient(port, "loadtest-" + client, commandCount, maxTasks,
+                    seed + client)));
+        }
+        Map<String, LatencyRecorder> latencies = new LinkedHashMap<>();
+        for (String verb : Workload.VERBS) {
+            latencies.put(verb, new LatencyRecorder());
+        }
+        for (Future<Map<String, LatencyRecorder>> result : results) {
+            result.get().forEach((verb, recorder) -> latencies.get(verb).addAll(recorder));
+        }
+        double seconds = (System.nanoTime() - startTime) / 1e9;
+        clients.shutdown();
+
+        System.out.printf("%d clients: %.0f commands/s over %.1f s%n%n", clientCount,
+                clientCount * commandCount / seconds, seconds);
+        System.out.printf("%-10s %10s %10s %10s %10s %10s%n", "verb", "count", "p50 us", "p99 us", "p999 us",
+                "max us");
+        for (Map.Entry<String, LatencyRecorder> entry : latencies.entrySet()) {
+            LatencyRecorder recorder = entry.getValue();
+            long[] percentiles = recorder.getPercentiles(50, 99, 99.9, 100);
+            System.out.printf("%-10s %10d %10.1f %10.1f %10.1f %10.1f%n", entry.getKey(), recorder.getCount(),
+                    percentiles[0] / 1e3, percentiles[1] / 1e3, percentiles[2] / 1e3, percentiles[3] / 1e3);
+        }
+    }
+
+    /**
+     * Logs in as the given user and sends the given number of commands, one at a time.
+     *
+     * @return Latencies of the commands, by verb.
+     */
+    private static Map<String, LatencyRecorder> runClient(int port, String user, long commandCount, int maxTasks,
+            long seed) throws IOException {
+        Workload workload = new Workload(seed, maxTasks);
+        Map<String, LatencyRecorder> latencies = new LinkedHashMap<>();
+        for (String verb : Workload.VERBS) {
+            latencies.put(verb, new LatencyRecorder());
+        }
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port);
+                BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(),
+                        StandardCharsets.UTF_8));
+                PrintWriter out = new PrintWriter(socket.getOutputStream(), true, StandardCharsets.UTF_8)) {
+            send(in, out, "user " + user);
+            // Start from an empty task list, as the task counts of the workload assume
+            while (send(in, out, "delete 1").startsWith("Got it!")) {
+                // Keep deleting
+            }
+            for (long i = 0; i < commandCount; i++) {
+                String verb = workload.nextVerb();
+                String input = workload.nextInput(verb);
+                long commandStartTime = System.nanoTime();
+                send(in, out, input);
+                latencies.get(verb).record(System.nanoTime() - commandStartTime);
+            }
+            send(in, out, "bye");
+        }
+        return latencies;
+    }
+
+    /**
+     * Sends a command and waits for the whole response.
+     */
+    private static String send(BufferedReader in, PrintWriter out, String input) throws IOException {
+        out.println(input);
+        StringBuilder response = new StringBuilder();
+        String line;
+        while ((line = in.readLine()) != null && !line.equals(".")) {
+            response.append(line).append('\n');
+        }
+        return response.toString();
+    }
+
+    private static void deleteDirectory(Path directory) throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+
+    private static String getOption(String[] args, String name, String defaultValue) {
+        for (String arg : args) {
+            if (arg.startsWith("--" + name + "=")) {
+                return arg.substring(name.length() + 3);
+            }
+        }
+        return defaultValue;
+    }
+}
@@ -0,0 +1,111 @@
+package boo.loadtest;
+
+import boo.misc.Ui;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Random;
+
+/**
+ * Represents a mixed stream of commands for one task list.
+ * The task list grows to about the given number of tasks and then stays around it, since adds turn into deletes
+ * once it is full.
+ */
+class Workload {
+    static final String[] VERBS = {"todo", "deadline", "event", "mark", "unmark", "delete", "find", "list"};
+    // Share of each verb in the workload, in the same order as VERBS
+    private static final int[] WEIGHTS = {15, 12, 8, 15, 5, 10, 20, 15};
+    private static final String[] WORDS = {
+        "read", "book", "return", "library", "project", "meeting", "buy", "groceries", "quiz", "lecture",
+        "netball", "training", "laundry", "dinner", "assignment", "report", "dentist", "flight", "gym", "call"
+    };
+    private static final DateTimeFormatter INPUT_DATE_FORMAT = DateTimeFormatter.ofPattern("dd/MM/yyyy HHmm");
+    private static final LocalDateTime FIRST_DATE = LocalDateTime.of(2025, 1, 1, 0, 0);
+
+    private final Random random;
+    private final int maxTasks;
+    private int taskCount;
+
+    Workload(long seed, int maxTasks) {
+        this.random = new Random(seed);
+        this.maxTasks = maxTasks;
+    }
+
+    int getTaskCount() {
+        return taskCount;
+    }
+
+    /**
+     * Returns the verb of the next command.
+     */
+    String nextVerb() {
+        int roll = random.nextInt(100);
+        String verb = VERBS[VERBS.length - 1];
+        for (int i = 0; i < VERBS.length; i++) {
+            roll -= WEIGHTS[i];
+            if (roll < 0) {
+                verb = VERBS[i];
+                break;
+            }
+        }
+        boolean isAdd = verb.equals("todo") || verb.equals("deadline") || verb.equals("event");
+        if (isAdd && taskCount >= maxTasks) {
+            return "delete";
+        }
+        if (!isAdd && taskCount == 0 && !verb.equals("find")) {
+            return "todo";
+        }
+        return verb;
+    }
+
+    /**
+     * Returns the next command with the given verb, and keeps track of how many tasks it leaves.
+     */
+    String nextInput(String verb) {
+        switch (verb) {
+        case "todo":
+            taskCount++;
+            return "todo " + nextDescription();
+        case "deadline":
+            taskCount++;
+            return "deadline " + nextDescription() + " /by " + nextDate().format(INPUT_DATE_FORMAT);
+        case "event":
+            taskCount++;
+            LocalDateTime start = nextDate();
+            return "event " + nextDescription() + " /from " + start.format(INPUT_DATE_FORMAT)
+                    + " /to " + start.plusHours(1 + random.nextInt(4)).format(INPUT_DATE_FORMAT);
+        case "mark":
+        case "unmark":
+            return verb + " " + (1 + random.nextInt(taskCount));
+        case "delete":
+            return "delete " + (1 + random.nextInt(taskCount--));
+        case "find":
+            return "find " + nextFindQuery();
+        default:
+            // Most lists are paged, but a full list is still asked for now and then
+            int pageCount = Ui.getPageCount(taskCount);
+            return random.nextInt(100) == 0 ? "list" : "list page " + (1 + random.nextInt(pageCount));
+        }
+    }
+
+    private String nextDescription() {
+        return WORDS[random.nextInt(WORDS.length)] + " " + WORDS[random.nextInt(WORDS.length)] + " "
+                + random.nextInt(1000);
+    }
+
+    private String nextFindQuery() {
+        String word = WORDS[random.nextInt(WORDS.length)];
+        switch (random.nextInt(4)) {
+        case 0:
+            return word + " AND " + WORDS[random.nextInt(WORDS.length)];
+        case 1:
+            return word + " OR " + WORDS[random.nextInt(WORDS.length)];
+        default:
+            return word + " page 1";
+        }
+    }
+
+    private LocalDateTime nextDate() {
+        return FIRST_DATE.plusMinutes(random.nextInt(3 * 365 * 24 * 60));
+    }
+}
@@ -1,19 +1,51 @@
 package boo;
 
+import boo.misc.BinaryStorage;
 import boo.misc.BooException;
+import boo.misc.Command;
+import boo.misc.CommandRouter;
+import boo.misc.Histogram;
+import boo.misc.Metrics;
 import boo.misc.Parser;
+import boo.misc.SegmentedStorage;
 import boo.misc.Storage;
 import boo.misc.Ui;
 import boo.task.TaskList;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
 /**
  * Represents the main class of the program.
  */
 public class Boo {
+    private static final long SAVE_DELAY_MILLIS = 500;
+    private static final int MAX_PENDING_CHANGES = 100;
+    private static final long METRICS_DUMP_PERIOD_MILLIS = 60_000;
+    // Number of days after its date that a done deadline or event is archived when Boo starts, or a negative
+    // number for never, which is the default
+    private static final int ARCHIVE_AFTER_DAYS = Integer.getInteger("boo.archiveAfterDays", -1);
+    private static final Histogram RESPONSE_TIME = Metrics.histogram("response");
+
     private final Ui ui;
     private final Storage storage;
     private final TaskList taskList;
     private final Parser parser;
+    private final CommandRouter<Command> commands = new CommandRouter<>();
+    // Commands that can also write their responses straight to a sink, by the commands they were registered as
+    private final Map<Command, StreamingCommand> streamingCommands = new HashMap<>();
+
+    /**
+     * Represents a command that writes Boo's response to a sink instead of returning it, so that long responses
+     * are never held in memory as a whole.
+     */
+    @FunctionalInterface
+    private interface StreamingCommand {
+        void execute(String input, Appendable out) throws BooException, IOException;
+    }
 
     /**
      * Constructor for the chatbot
@@ -21,10 +53,118 @@ public class Boo {
      * @throws BooException If there is any problem reading the input.
      */
     public Boo() throws BooException {
+        this(createDefaultStorage());
+        Metrics.startPeriodicDump("./data/metrics.txt", METRICS_DUMP_PERIOD_MILLIS);
+    }
+
+    /**
+     * Constructs a chatbot that keeps its tasks in the given storage.
+     *
+     * @param storage Storage to store and load the task list in a hard disk.
+     * @throws BooException If the tasks could not be loaded.
+     */
+    public Boo(Storage storage) throws BooException {
         ui = new Ui();
-        storage = new Storage("./data/Boo.txt");
+        this.storage = storage;
         taskList = new TaskList(storage, ui);
+        if (ARCHIVE_AFTER_DAYS >= 0) {
+            taskList.archiveStaleTasks(ARCHIVE_AFTER_DAYS);
+        }
         parser = new Parser(taskList, ui);
+        registerCommands();
+    }
+
+    private static Storage createDefaultStorage() {
+        Storage storage = new SegmentedStorage("./data/tasks", new BinaryStorage("./data/Boo.bin", "./data/Boo.txt"));
+        storage.enableWriteBehind(SAVE_DELAY_MILLIS, MAX_PENDING_CHANGES);
+        return storage;
+    }
+
+    private void registerCommands() {
+        commands.registerExact("bye", input -> {
+            String goodbyeMessage = ui.printGoodbyeMessage();
+            storage.flush();
+            System.exit(0);
+            return goodbyeMessage;
+        });
+        register("list", taskList::listTasks, taskList::listTasks);
+        register("mark", taskList::markAsDone);
+        register("unmark", taskList::markAsNotDone);
+        register("delete", taskList::deleteTask);
+        register("find", taskList::findTask, taskList::findTask);
+        register("undo", taskList::undo);
+        register("redo", taskList::redo);
+        register("archive", taskList::archiveTasks);
+        Command addTask = input -> taskList.addTask(Parser.parseTask(input));
+        register("todo", addTask);
+        register("deadline", addTask);
+        register("event", addTask);
+        register("due ", taskList::findTasksDueBefore);
+        register("on ", taskList::findTasksOn);
+        register("between ", taskList::findTasksBetween);
+        commands.register("stats", this::showStats);
+    }
+
+    /**
+     * Registers a command whose running time is collected under "command." followed by its verb.
+     */
+    private Command register(String verb, Command command) {
+        Histogram histogram = Metrics.histogram("command." + verb.trim().toLowerCase());
+        Command timedCommand = input -> {
+            long startTime = Metrics.startTimer();
+            try {
+                return command.execute(input);
+            } finally {
+                Metrics.stopTimer(histogram, startTime);
+            }
+        };
+        commands.register(verb, timedCommand);
+        return timedCommand;
+    }
+
+    /**
+     * Registers a command that can also write its response straight to a sink, which scripts use.
+     */
+    private void register(String verb, Command command, StreamingCommand streamingCommand) {
+        Histogram histogram = Metrics.histogram("command." + verb.trim().toLowerCase());
+        streamingCommands.put(register(verb, command), (input, out) -> {
+            long startTime = Metrics.startTimer();
+            try {
+                streamingCommand.execute(input, out);
+            } finally {
+                Metrics.stopTimer(histogram, startTime);
+            }
+        });
+    }
+
+    private String showStats(String input) throws BooException {
+        String argument = input.trim().substring(5).trim().toLowerCase();
+        switch (argument) {
+        case "":
+            return ui.printStats(Metrics.report(), Metrics.isEnabled());
+        case "on":
+            Metrics.setEnabled(true);
+            return ui.printStatsChanged("switched on");
+        case "off":
+            Metrics.setEnabled(false);
+            return ui.printStatsChanged("switched off");
+        case "reset":
+            Metrics.reset();
+            return ui.printStatsChanged("reset");
+        default:
+            throw new BooException("Oops! Boo only understands 'stats', 'stats on', 'stats off' and 'stats reset'.\n");
+        }
+    }
+
+    /**
+     * Registers a command for every input that starts with the given verb, replacing any command already
+     * registered for that verb.
+     *
+     * @param verb Verb that the inputs start with.
+     * @param command Command to carry out for those inputs.
+     */
+    public void registerCommand(String verb, Command command) {
+        register(verb, command);
     }
 
     /**
@@ -35,30 +175,85 @@ public class Boo {
      */
     public String getResponse(String input) {
         ui.printGreeting();
+        long startTime = Metrics.startTimer();
         try {
-            if (input.equalsIgnoreCase("bye")) {
-                String goodbyeMessage = ui.printGoodbyeMessage();
-                System.exit(0);
-                return goodbyeMessage;
-            }
-            if (input.equalsIgnoreCase("list")) {
-                return ui.printTaskHistory(taskList.getTaskMap());
-            } else if (input.toLowerCase().startsWith("mark")) {
-                return taskList.markAsDone(input);
-            } else if (input.toLowerCase().startsWith("unmark")) {
-                return taskList.markAsNotDone(input);
-            } else if (input.toLowerCase().startsWith("delete")) {
-                return taskList.deleteTask(input);
-            } else if (input.toLowerCase().startsWith("find")) {
-                return taskList.findTask(input);
-            } else {
-                return taskList.addTask(Parser.parseTask(input));
-            }
+            return execute(input);
         } catch (BooException e) {
             return e.getMessage();
+        } finally {
+            Metrics.stopTimer(RESPONSE_TIME, startTime);
+        }
+    }
+
+    private String execute(String input) throws BooException {
+        Command command = commands.route(input);
+        return command != null ? command.execute(input) : taskList.addTask(Parser.parseTask(input));
+    }
+
+    /**
+     * Carries out the commands in a script, one per line, and writes Boo's responses to a sink.
+     * Listing and finding tasks write their responses straight to the sink, so long responses are never built
+     * up in memory. The task list is saved once, after the last command. Blank lines are skipped, and the script
+     * stops at "bye" without exiting.
+     * In strict mode, the first command that fails stops the script and discards the changes made by the
+     * commands before it. Otherwise, the error is written as the response and the script carries on.
+     *
+     * @param commands Reader that the commands are read from.
+     * @param out Sink that the responses are written to.
+     * @param isStrict Whether a failed command should discard the whole script.
+     * @throws BooException If a command failed in strict mode, or if the tasks could not be saved.
+     * @throws IOException If the commands could not be read or the responses could not be written.
+     */
+    public void runBatch(BufferedReader commands, Appendable out, boolean isStrict)
+            throws BooException, IOException {
+        taskList.beginBatch();
+        int lineNumber = 0;
+        String input;
+        while ((input = commands.readLine()) != null) {
+            lineNumber++;
+            if (input.isBlank()) {
+                continue;
+            }
+            if (input.trim().equalsIgnoreCase("bye")) {
+                out.append(ui.printGoodbyeMessage()).append('\n');
+                break;
+            }
+            try {
+                execute(input.trim(), out);
+                out.append('\n');
+            } catch (BooException e) {
+                if (isStrict) {
+                    taskList.rollbackBatch();
+                    throw new BooException("Oh no! Boo stopped at line " + lineNumber + " of your script, "
+                            + "so none of its changes were saved.\n" + e.getMessage());
+                }
+                out.append(e.getMessage()).append('\n');
+            }
+        }
+        taskList.commitBatch();
+    }
+
+    /**
+     * Carries out a command and writes Boo's response to a sink, streaming it if the command can.
+     */
+    private void execute(String input, Appendable out) throws BooException, IOException {
+        StreamingCommand streamingCommand = streamingCommands.get(commands.route(input));
+        if (streamingCommand != null) {
+            streamingCommand.execute(input, out);
+        } else {
+            out.append(execute(input));
         }
     }
 
+    /**
+     * Starts sending reminders for the deadlines and events that are coming up and not done yet.
+     *
+     * @param listener Listener that receives each reminder, from a background thread.
+     */
+    public void startReminders(Consumer<String> listener) {
+        taskList.startReminders(listener);
+    }
+
     public Ui getUi() {
         return ui;
     }
@@ -0,0 +1,220 @@
+package boo.misc;
+
+import boo.task.Deadline;
+import boo.task.Event;
+import boo.task.Task;
+import boo.task.Todo;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Represents a Storage that keeps the task history in a compact binary file.
+ * The file starts with a magic number, a format version and the number of tasks. Each task is stored as its
+ * length in bytes, a type byte, a done flag, its dates in minutes since the epoch and its description in UTF-8.
+ * The file ends with a CRC32 checksum of everything before it.
+ * The file is memory-mapped when loading, so no text has to be split or dates parsed.
+ *
+ * If the binary file does not exist yet, tasks are migrated from the legacy text file the first time they are
+ * loaded, and the text file is then renamed so that the migration only happens once.
+ */
+public class BinaryStorage extends Storage {
+    private static final int MAGIC = 0x424F4F00; // "BOO" followed by a zero byte
+    private static final byte VERSION = 1;
+    private static final int HEADER_SIZE = 4 + 1 + 4;
+    private static final int CHECKSUM_SIZE = 4;
+
+    private static final byte TODO = 0;
+    private static final byte DEADLINE = 1;
+    private static final byte EVENT = 2;
+
+    private final Path path;
+    private final String legacyFilePath;
+
+    /**
+     * Constructs a BinaryStorage that records changes in a journal and migrates tasks from a legacy text file.
+     *
+     * @param filePath Path to the binary file that the task history will be stored in.
+     * @param legacyFilePath Path to the text file that the task history used to be stored in.
+     */
+    public BinaryStorage(String filePath, String legacyFilePath) {
+        super(filePath, true);
+        this.path = Paths.get(filePath);
+        this.legacyFilePath = legacyFilePath;
+    }
+
+    /**
+     * Constructs a BinaryStorage without a legacy text file, for subclasses that keep tasks in the binary format.
+     *
+     * @param filePath Path to the binary file that the task history will be stored in.
+     * @param isJournaled Whether changes should be appended to a journal.
+     * @param compactionThreshold Size of the journal in bytes after which it is folded into the binary file.
+     */
+    protected BinaryStorage(String filePath, boolean isJournaled, long compactionThreshold) {
+        super(filePath, isJournaled, compactionThreshold);
+        this.path = Paths.get(filePath);
+        this.legacyFilePath = null;
+    }
+
+    /**
+     * Returns tasks that were saved in the binary file prior, migrating the legacy text file first if needed.
+     *
+     * @return List of all the tasks that were present in the file, in order of their task IDs.
+     * @throws BooException If there was a problem loading or migrating the tasks.
+     */
+    @Override
+    public List<Task> loadTasksFromFile() throws BooException {
+        if (legacyFilePath != null && !Files.exists(path) && new File(legacyFilePath).exists()) {
+            migrate(new File(legacyFilePath));
+        }
+        return super.loadTasksFromFile();
+    }
+
+    private void migrate(File legacyFile) throws BooException {
+        // The legacy journal is only replayed if there is one, since loading a journaled Storage creates it
+        boolean hasJournal = Files.exists(Paths.get(legacyFilePath + ".journal"));
+        Storage legacyStorage = new Storage(legacyFilePath, hasJournal);
+        List<Task> tasks;
+        try {
+            tasks = legacyStorage.loadTasksFromFile();
+        } finally {
+            // Releases the journal, so that it can be deleted below
+            legacyStorage.close();
+        }
+        try {
+            Path tempPath = Paths.get(path + ".tmp");
+            writeSnapshot(tasks, tempPath);
+            Files.move(tempPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            Files.move(legacyFile.toPath(), Paths.get(legacyFilePath + ".migrated"),
+                    StandardCopyOption.REPLACE_EXISTING);
+            Files.deleteIfExists(Paths.get(legacyFilePath + ".journal"));
+        } catch (IOException e) {
+            throw new BooException("Oops! Something went wrong! Boo couldn't upgrade your saved tasks :(\n");
+        }
+    }
+
+    @Override
+    protected long readSnapshot(Path path, List<Task> tasks) throws IOException, BooException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_SIZE + CHECKSUM_SIZE || size > Integer.MAX_VALUE) {
+                throw new BooException("Oh no! Boo's task file is damaged.\n");
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            int contentSize = (int) size - CHECKSUM_SIZE;
+            CRC32 checksum = new CRC32();
+            checksum.update(buffer.slice(0, contentSize));
+            long storedChecksum = Integer.toUnsignedLong(buffer.getInt(contentSize));
+            if (checksum.getValue() != storedChecksum) {
+                throw new BooException("Oh no! Boo's task file is damaged.\n");
+            }
+            if (buffer.getInt() != MAGIC || buffer.get() != VERSION) {
+                throw new BooException("Oh no! Boo does not recognise the format of the task file.\n");
+            }
+            int taskCount = buffer.getInt();
+            for (int i = 0; i < taskCount; i++) {
+                tasks.add(readTask(buffer));
+            }
+            return storedChecksum;
+        }
+    }
+
+    private Task readTask(ByteBuffer buffer) throws BooException {
+        int length = buffer.getInt();
+        int end = buffer.position() + length;
+        byte type = buffer.get();
+        boolean isDone = buffer.get() != 0;
+        Task task;
+        switch (type) {
+        case TODO:
+            task = new Todo(readDescription(buffer, end));
+            break;
+        case DEADLINE:
+            LocalDateTime deadline = readDate(buffer);
+            task = new Deadline(readDescription(buffer, end), deadline);
+            break;
+        case EVENT:
+            LocalDateTime startTime = readDate(buffer);
+            LocalDateTime endTime = readDate(buffer);
+            task = new Event(readDescription(buffer, end), startTime, endTime);
+            break;
+        default:
+            throw new BooException("Unknown task type in file.");
+        }
+        return isDone ? task.withDone(true) : task;
+    }
+
+    private String readDescription(ByteBuffer buffer, int end) {
+        String description = StandardCharsets.UTF_8.decode(buffer.slice(buffer.position(), end - buffer.position()))
+                .toString();
+        buffer.position(end);
+        return description;
+    }
+
+    private LocalDateTime readDate(ByteBuffer buffer) {
+        return LocalDateTime.ofEpochSecond(buffer.getLong() * 60, 0, ZoneOffset.UTC);
+    }
+
+    @Override
+    protected long writeSnapshot(List<Task> tasks, Path path) throws IOException {
+        File file = path.toFile();
+        createParentDirectories(file);
+        FileOutputStream fileOutput = new FileOutputStream(file);
+        CheckedOutputStream checkedOutput = new CheckedOutputStream(new BufferedOutputStream(fileOutput), new CRC32());
+        try (DataOutputStream output = new DataOutputStream(checkedOutput)) {
+            output.writeInt(MAGIC);
+            output.writeByte(VERSION);
+            output.writeInt(tasks.size());
+            for (Task task : tasks) {
+                writeTask(task, output);
+            }
+            long checksum = checkedOutput.getChecksum().getValue();
+            output.writeInt((int) checksum);
+            output.flush();
+            fileOutput.getFD().sync();
+            return checksum;
+        }
+    }
+
+    private void writeTask(Task task, DataOutputStream output) throws IOException {
+        byte[] description = task.getDescription().getBytes(StandardCharsets.UTF_8);
+        if (task instanceof Deadline deadlineTask) {
+            output.writeInt(2 + 8 + description.length);
+            output.writeByte(DEADLINE);
+            output.writeBoolean(task.isDone());
+            writeDate(deadlineTask.getStartDate(), output);
+        } else if (task instanceof Event eventTask) {
+            output.writeInt(2 + 8 + 8 + description.length);
+            output.writeByte(EVENT);
+            output.writeBoolean(task.isDone());
+            writeDate(eventTask.getStartDate(), output);
+            writeDate(eventTask.getEndDate(), output);
+        } else {
+            output.writeInt(2 + description.length);
+            output.writeByte(TODO);
+            output.writeBoolean(task.isDone());
+        }
+        output.write(description);
+    }
+
+    private void writeDate(LocalDateTime date, DataOutputStream output) throws IOException {
+        output.writeLong(date.toEpochSecond(ZoneOffset.UTC) / 60);
+    }
+}
@@ -0,0 +1,16 @@
+package boo.misc;
+
+/**
+ * Represents a command that Boo can carry out in response to user input.
+ */
+@FunctionalInterface
+public interface Command {
+    /**
+     * Carries out the command and returns Boo's response.
+     *
+     * @param input The user input.
+     * @return Boo's response.
+     * @throws BooException If the command could not be carried out.
+     */
+    String execute(String input) throws BooException;
+}
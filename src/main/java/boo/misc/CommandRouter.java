@@ -0,0 +1,88 @@
+package boo.misc;
+
+/**
+ * Represents a registry that routes user inputs to handlers by the verb they start with, ignoring case.
+ * The verbs are kept in a trie, so finding the handler for an input only looks at as many characters as the
+ * longest verb, however many verbs are registered. When several verbs match, the longest one wins.
+ *
+ * @param <T> Type of the handlers.
+ */
+public class CommandRouter<T> {
+    private final Node<T> root = new Node<>();
+
+    private static final class Node<T> {
+        private char key;
+        private Node<T> child;
+        private Node<T> sibling;
+        private T prefixHandler;
+        private T exactHandler;
+    }
+
+    /**
+     * Registers a handler for every input that starts with the given verb.
+     *
+     * @param verb Verb that the inputs start with.
+     * @param handler Handler for those inputs.
+     */
+    public void register(String verb, T handler) {
+        assert handler != null : "Handler should not be null";
+        nodeFor(verb).prefixHandler = handler;
+    }
+
+    /**
+     * Registers a handler for inputs that are exactly the given verb.
+     *
+     * @param verb Verb that the inputs consist of.
+     * @param handler Handler for those inputs.
+     */
+    public void registerExact(String verb, T handler) {
+        assert handler != null : "Handler should not be null";
+        nodeFor(verb).exactHandler = handler;
+    }
+
+    /**
+     * Returns the handler registered for the verb that the input starts with.
+     *
+     * @param input User input.
+     * @return Handler for the input, or null if no verb matches.
+     */
+    public T route(String input) {
+        T handler = null;
+        Node<T> node = root;
+        for (int i = 0; i < input.length(); i++) {
+            node = childOf(node, Character.toLowerCase(input.charAt(i)));
+            if (node == null) {
+                return handler;
+            }
+            if (node.prefixHandler != null) {
+                handler = node.prefixHandler;
+            }
+        }
+        return node.exactHandler != null ? node.exactHandler : handler;
+    }
+
+    private Node<T> nodeFor(String verb) {
+        assert !verb.isEmpty() : "Verb should not be empty";
+        Node<T> node = root;
+        for (int i = 0; i < verb.length(); i++) {
+            char key = Character.toLowerCase(verb.charAt(i));
+            Node<T> child = childOf(node, key);
+            if (child == null) {
+                child = new Node<>();
+                child.key = key;
+                child.sibling = node.child;
+                node.child = child;
+            }
+            node = child;
+        }
+        return node;
+    }
+
+    private static <T> Node<T> childOf(Node<T> node, char key) {
+        Node<T> child = node.child;
+        while (child != null && child.key != key) {
+            child = child.sibling;
+        }
+        return child;
+    }
+}
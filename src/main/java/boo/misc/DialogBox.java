@@ -1,59 +1,67 @@
 package boo.misc;
 
-import java.io.IOException;
-import java.util.Collections;
-
-import javafx.collections.FXCollections;
-import javafx.collections.ObservableList;
-import javafx.fxml.FXML;
-import javafx.fxml.FXMLLoader;
+import javafx.geometry.Insets;
 import javafx.geometry.Pos;
-import javafx.scene.Node;
 import javafx.scene.control.Label;
 import javafx.scene.image.Image;
 import javafx.scene.image.ImageView;
 import javafx.scene.layout.HBox;
+import javafx.scene.layout.Region;
 
 /**
  * Represents a dialog box consisting of an ImageView to represent the speaker's face
  * and a label containing text from the speaker.
+ * The nodes are built in code rather than loaded from FXML, so a dialog box is cheap to create.
  */
 public class DialogBox extends HBox {
-    @FXML
-    private Label dialog;
-    @FXML
-    private ImageView displayPicture;
+    private static final String STYLESHEET = DialogBox.class.getResource("/css/dialog-box.css").toExternalForm();
+    private static final double PICTURE_SIZE = 99.0;
+
+    private final Label dialog;
+    private final ImageView displayPicture;
 
     /**
      * Constructs a DialogBox with the specified text and image.
-     * Loads the corresponding FXML file and initializes the UI components.
      *
      * @param text The text to be displayed in the dialog box.
      * @param img  The image representing the speaker.
+     * @param isReply Whether the image should be on the left and the text on the right.
      */
-    private DialogBox(String text, Image img) {
-        try {
-            FXMLLoader fxmlLoader = new FXMLLoader(MainWindow.class.getResource("/view/DialogBox.fxml"));
-            fxmlLoader.setController(this);
-            fxmlLoader.setRoot(this);
-            fxmlLoader.load();
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
+    private DialogBox(String text, Image img, boolean isReply) {
+        dialog = new Label(text);
+        dialog.setMinHeight(Region.USE_PREF_SIZE);
+        dialog.setWrapText(true);
+        dialog.setPadding(new Insets(6.0));
+        HBox.setMargin(dialog, new Insets(0.0, 7.0, 0.0, 7.0));
 
-        dialog.setText(text);
-        displayPicture.setImage(img);
+        displayPicture = new ImageView(img);
+        displayPicture.setId("displayPicture");
+        displayPicture.setFitHeight(PICTURE_SIZE);
+        displayPicture.setFitWidth(PICTURE_SIZE);
+        displayPicture.setPickOnBounds(true);
+        displayPicture.setPreserveRatio(true);
+
+        getStylesheets().add(STYLESHEET);
+        setMaxSize(Double.MAX_VALUE, Double.MAX_VALUE);
+        setPrefWidth(400.0);
+        setPadding(new Insets(15.0, 5.0, 15.0, 5.0));
+        if (isReply) {
+            dialog.getStyleClass().add("reply-label");
+            setAlignment(Pos.TOP_LEFT);
+            getChildren().addAll(displayPicture, dialog);
+        } else {
+            setAlignment(Pos.TOP_RIGHT);
+            getChildren().addAll(dialog, displayPicture);
+        }
     }
 
     /**
-     * Flips the dialog box such that the ImageView is on the left and text on the right.
+     * Changes the text displayed in the dialog box, so that the dialog box can be reused for another message.
+     *
+     * @param text The text to be displayed in the dialog box.
      */
-    private void flip() {
-        ObservableList<Node> tmp = FXCollections.observableArrayList(this.getChildren());
-        Collections.reverse(tmp);
-        getChildren().setAll(tmp);
-        setAlignment(Pos.TOP_LEFT);
-        dialog.getStyleClass().add("reply-label");
+    public void setText(String text) {
+        dialog.setText(text);
     }
 
     /**
@@ -64,7 +72,7 @@ public class DialogBox extends HBox {
      * @return A DialogBox representing the user's message.
      */
     public static DialogBox getUserDialog(String text, Image img) {
-        return new DialogBox(text, img);
+        return new DialogBox(text, img, false);
     }
 
     /**
@@ -75,8 +83,6 @@ public class DialogBox extends HBox {
      * @return A DialogBox representing Boo's message.
      */
     public static DialogBox getBooDialog(String text, Image img) {
-        var db = new DialogBox(text, img);
-        db.flip();
-        return db;
+        return new DialogBox(text, img, true);
     }
 }
@@ -1,17 +1,97 @@
 package boo.misc;
 
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+
+import boo.Boo;
 import javafx.application.Application;
 
 /**
  * A launcher class to workaround classpath issues.
  */
 public class Launcher {
+    private static final int DEFAULT_SERVER_PORT = 7734;
 
     /**
      * Main entry path of application.
+     * Run with "--batch [file] [--strict]" to carry out the commands in a file, or in standard input if no file
+     * is given, without opening the GUI.
+     * Run with "--server [port]" to serve many users over a local port instead, see {@link Server}.
      */
     public static void main(String[] args) {
+        if (args.length > 0 && args[0].equals("--batch")) {
+            runBatch(args);
+            return;
+        }
+        if (args.length > 0 && args[0].equals("--server")) {
+            runServer(args);
+            return;
+        }
         Application.launch(Main.class, args);
     }
-}
 
+    private static void runServer(String[] args) {
+        int port = DEFAULT_SERVER_PORT;
+        if (args.length > 1) {
+            try {
+                port = Integer.parseInt(args[1]);
+            } catch (NumberFormatException e) {
+                port = -1;
+            }
+            if (port < 0 || port > 65535) {
+                System.err.println("Oops! Boo needs the port to be a number from 0 to 65535.\n"
+                        + "Usage: java -jar boo.jar --server [PORT]");
+                System.exit(1);
+            }
+        }
+        Server server = new Server(Paths.get("./data/users"), Integer.getInteger("boo.maxUsers", 1000));
+        try {
+            port = server.start(port);
+        } catch (IOException e) {
+            System.err.println("Oh no! Boo could not listen on port " + port + ": " + e.getMessage());
+            System.exit(1);
+        }
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try {
+                server.stop();
+            } catch (BooException e) {
+                System.err.print(e.getMessage());
+            }
+        }, "boo-server-shutdown"));
+        System.out.println("Boo is listening on port " + port + ".");
+    }
+
+    private static void runBatch(String[] args) {
+        boolean isStrict = Arrays.asList(args).contains("--strict");
+        String filePath = Arrays.stream(args, 1, args.length)
+                .filter(arg -> !arg.startsWith("--"))
+                .findFirst()
+                .orElse(null);
+        Writer out = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8));
+        try (BufferedReader commands = filePath == null
+                ? new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8))
+                : Files.newBufferedReader(Paths.get(filePath))) {
+            Boo boo = new Boo();
+            // Without a window, reminders that fall due while the script runs are logged instead
+            boo.startReminders(System.err::print);
+            boo.runBatch(commands, out, isStrict);
+            out.flush();
+        } catch (BooException | IOException e) {
+            try {
+                out.flush();
+            } catch (IOException ignored) {
+                // Nothing more can be written
+            }
+            System.err.println(e.getMessage());
+            System.exit(1);
+        }
+    }
+}
@@ -15,6 +15,7 @@ import javafx.stage.Stage;
 public class Main extends Application {
 
     private final Boo boo = new Boo();
+    private MainWindow mainWindow;
 
     /**
      * Constructs the Main application class.
@@ -32,10 +33,18 @@ public class Main extends Application {
             Scene scene = new Scene(ap);
             stage.setScene(scene);
             stage.setTitle("Boo");
-            fxmlLoader.<MainWindow>getController().setBoo(boo);  // inject the Boo instance
+            mainWindow = fxmlLoader.getController();
+            mainWindow.setBoo(boo);  // inject the Boo instance
             stage.show();
         } catch (IOException e) {
             e.printStackTrace();
         }
     }
+
+    @Override
+    public void stop() {
+        if (mainWindow != null) {
+            mainWindow.shutdown();
+        }
+    }
 }
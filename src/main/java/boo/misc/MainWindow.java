@@ -1,27 +1,47 @@
 package boo.misc;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
 import boo.Boo;
 import boo.misc.DialogBox;
+import javafx.animation.PauseTransition;
+import javafx.application.Platform;
+import javafx.collections.ObservableList;
 import javafx.fxml.FXML;
 import javafx.scene.control.Button;
-import javafx.scene.control.ScrollPane;
+import javafx.scene.control.ListCell;
+import javafx.scene.control.ListView;
+import javafx.scene.control.ProgressIndicator;
 import javafx.scene.control.TextField;
 import javafx.scene.image.Image;
 import javafx.scene.layout.AnchorPane;
-import javafx.scene.layout.VBox;
+import javafx.util.Duration;
 
 /**
  * Controller for the main GUI.
  */
 public class MainWindow extends AnchorPane {
+    // Number of messages kept in the transcript; older ones can be shown again on demand
+    private static final int RETAINED_MESSAGE_COUNT = Integer.getInteger("boo.retainedMessages", 200);
+    private static final int EARLIER_MESSAGE_BATCH = 50;
+    // Number of dropped messages that can be shown again; older ones are forgotten
+    private static final int MAX_EARLIER_MESSAGE_COUNT = Math.max(0, Integer.getInteger("boo.earlierMessages", 1000));
+    private static final Message EARLIER_MESSAGES = new Message(null, Speaker.NONE);
+
     @FXML
-    private ScrollPane scrollPane;
-    @FXML
-    private VBox dialogContainer;
+    private ListView<Message> transcript;
     @FXML
     private TextField userInput;
     @FXML
     private Button sendButton;
+    @FXML
+    private ProgressIndicator pendingIndicator;
 
     private Boo boo;
     private Ui ui;
@@ -29,12 +49,60 @@ public class MainWindow extends AnchorPane {
     private final Image userImage = new Image(this.getClass().getResourceAsStream("/images/jiwon.png"));
     private final Image booImage = new Image(this.getClass().getResourceAsStream("/images/Boo.png"));
 
+    // Commands run one at a time, in the order they were sent, so that saving never blocks the window
+    private final ExecutorService commandExecutor = Executors.newSingleThreadExecutor(runnable ->
+            new Thread(runnable, "boo-commands"));
+    // Quick commands finish before the pending indicator would flicker into view
+    private final PauseTransition pendingDelay = new PauseTransition(Duration.millis(150));
+    private int pendingCommandCount;
+    // Most recent messages that were dropped from the transcript, oldest first
+    private final Deque<Message> earlierMessages = new ArrayDeque<>();
+
+    private enum Speaker {
+        USER, BOO, NONE
+    }
+
+    private record Message(String text, Speaker speaker) {
+    }
+
+    /**
+     * Represents a row of the transcript. Only the rows on screen exist as nodes, and each row reuses its dialog
+     * boxes for whichever message it is showing.
+     */
+    private class MessageCell extends ListCell<Message> {
+        private final DialogBox userDialog = DialogBox.getUserDialog("", userImage);
+        private final DialogBox booDialog = DialogBox.getBooDialog("", booImage);
+        private final Button earlierMessagesButton = new Button("Show earlier messages");
+
+        private MessageCell(ListView<Message> listView) {
+            // Leave room for the scroll bar so that long messages wrap instead of widening the row
+            userDialog.prefWidthProperty().bind(listView.widthProperty().subtract(20));
+            booDialog.prefWidthProperty().bind(listView.widthProperty().subtract(20));
+            earlierMessagesButton.setOnAction(event -> showEarlierMessages());
+        }
+
+        @Override
+        protected void updateItem(Message message, boolean isEmpty) {
+            super.updateItem(message, isEmpty);
+            if (isEmpty || message == null) {
+                setGraphic(null);
+            } else if (message.speaker() == Speaker.NONE) {
+                setGraphic(earlierMessagesButton);
+            } else {
+                DialogBox dialogBox = message.speaker() == Speaker.USER ? userDialog : booDialog;
+                dialogBox.setText(message.text());
+                setGraphic(dialogBox);
+            }
+        }
+    }
+
     /**
      * Initializes the GUI components.
      */
     @FXML
     public void initialize() {
-        scrollPane.vvalueProperty().bind(dialogContainer.heightProperty());
+        transcript.setCellFactory(MessageCell::new);
+        pendingDelay.setOnFinished(event -> pendingIndicator.setVisible(true));
     }
 
     /** Injects the Boo instance */
@@ -44,21 +112,93 @@ public class MainWindow extends AnchorPane {
 
         // Show the welcome message right after the GUI is initialized
         String welcomeMessage = ui.printGreeting();  // Get greeting from Boo
-        dialogContainer.getChildren().add(DialogBox.getBooDialog(welcomeMessage, booImage));  // Display greeting
+        addMessage(new Message(welcomeMessage, Speaker.BOO));  // Display greeting
+        boo.startReminders(reminder -> Platform.runLater(() -> addMessage(new Message(reminder, Speaker.BOO))));
     }
 
     /**
-     * Creates two dialog boxes, one echoing user input and the other containing Boo's reply and then appends them to
-     * the dialog container. Clears the user input after processing.
+     * Echoes the user input in a dialog box and sends it to Boo, then clears the user input.
+     * Boo's reply is worked out away from the GUI thread and appended in another dialog box once it is ready.
+     * A pending indicator is shown while the reply takes long to work out.
      */
     @FXML
     private void handleUserInput() {
         String input = userInput.getText();
-        String response = boo.getResponse(input);
-        dialogContainer.getChildren().addAll(
-                DialogBox.getUserDialog(input, userImage),
-                DialogBox.getBooDialog(response, booImage)
-        );
+        addMessage(new Message(input, Speaker.USER));
         userInput.clear();
+        pendingCommandCount++;
+        pendingDelay.playFromStart();
+        commandExecutor.execute(() -> {
+            String response;
+            try {
+                response = boo.getResponse(input);
+            } catch (RuntimeException e) {
+                response = "Oh no! Something went wrong while Boo was working on that :(\n" + e.getMessage();
+            }
+            String reply = response;
+            Platform.runLater(() -> showResponse(reply));
+        });
+    }
+
+    private void showResponse(String response) {
+        addMessage(new Message(response, Speaker.BOO));
+        pendingCommandCount--;
+        if (pendingCommandCount == 0) {
+            pendingDelay.stop();
+            pendingIndicator.setVisible(false);
+        }
+    }
+
+    /**
+     * Appends a message to the transcript and scrolls to it.
+     * Once the transcript holds more than the retained number of messages, the oldest ones are dropped from it.
+     * Only the most recent of the dropped messages are kept, so a long session does not keep every message.
+     */
+    private void addMessage(Message message) {
+        ObservableList<Message> messages = transcript.getItems();
+        messages.add(message);
+        boolean hasEarlierMessages = !earlierMessages.isEmpty();
+        int firstIndex = hasEarlierMessages ? 1 : 0;
+        int excess = messages.size() - firstIndex - RETAINED_MESSAGE_COUNT;
+        if (excess > 0) {
+            List<Message> droppedMessages = messages.subList(firstIndex, firstIndex + excess);
+            earlierMessages.addAll(droppedMessages);
+            droppedMessages.clear();
+            while (earlierMessages.size() > MAX_EARLIER_MESSAGE_COUNT) {
+                earlierMessages.removeFirst();
+            }
+            if (!hasEarlierMessages && !earlierMessages.isEmpty()) {
+                messages.add(0, EARLIER_MESSAGES);
+            }
+        }
+        transcript.scrollTo(messages.size() - 1);
+    }
+
+    /**
+     * Puts the most recent batch of dropped messages back at the top of the transcript.
+     */
+    private void showEarlierMessages() {
+        ObservableList<Message> messages = transcript.getItems();
+        List<Message> restoredMessages = new ArrayList<>();
+        while (restoredMessages.size() < EARLIER_MESSAGE_BATCH && !earlierMessages.isEmpty()) {
+            restoredMessages.add(0, earlierMessages.removeLast());
+        }
+        messages.addAll(1, restoredMessages);
+        if (earlierMessages.isEmpty()) {
+            messages.remove(0);
+        }
+        transcript.scrollTo(0);
+    }
+
+    /**
+     * Waits for the commands that were already sent to finish, so that none of them are cut off while saving.
+     */
+    public void shutdown() {
+        commandExecutor.shutdown();
+        try {
+            commandExecutor.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
     }
 }
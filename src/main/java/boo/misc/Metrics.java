@@ -0,0 +1,131 @@
+package boo.misc;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Represents the timings that Boo collects about itself, kept in named histograms.
+ * Collection can be switched off at runtime, in which case timing an operation only costs a volatile read.
+ * Collection starts switched on, unless the program is run with -Dboo.metrics=false.
+ */
+public final class Metrics {
+    private static final Map<String, Histogram> HISTOGRAMS = new ConcurrentSkipListMap<>();
+    private static volatile boolean isEnabled = !"false".equals(System.getProperty("boo.metrics"));
+    private static ScheduledExecutorService dumper;
+
+    private Metrics() {
+    }
+
+    /**
+     * Returns the histogram with the given name, creating it if needed.
+     * Callers should keep the histogram rather than look it up for every timing.
+     *
+     * @param name Name of the histogram, e.g. "storage.save".
+     * @return Histogram with that name.
+     */
+    public static Histogram histogram(String name) {
+        return HISTOGRAMS.computeIfAbsent(name, key -> new Histogram());
+    }
+
+    public static boolean isEnabled() {
+        return isEnabled;
+    }
+
+    public static void setEnabled(boolean isEnabled) {
+        Metrics.isEnabled = isEnabled;
+    }
+
+    /**
+     * Returns the time at which an operation starts, or 0 if collection is switched off.
+     *
+     * @return Start time to pass to {@link #stopTimer(Histogram, long)}.
+     */
+    public static long startTimer() {
+        return isEnabled ? System.nanoTime() : 0;
+    }
+
+    /**
+     * Records how long an operation took, unless collection was switched off when it started.
+     *
+     * @param histogram Histogram of the operation.
+     * @param startTime Start time returned by {@link #startTimer()}.
+     */
+    public static void stopTimer(Histogram histogram, long startTime) {
+        if (startTime != 0) {
+            histogram.record(System.nanoTime() - startTime);
+        }
+    }
+
+    /**
+     * Forgets every recorded timing.
+     */
+    public static void reset() {
+        for (Histogram histogram : HISTOGRAMS.values()) {
+            histogram.reset();
+        }
+    }
+
+    /**
+     * Returns a table of the count, p50, p99, p999 and maximum of every histogram, in microseconds.
+     *
+     * @return The table, one histogram per line.
+     */
+    public static String report() {
+        StringBuilder report = new StringBuilder(String.format("%-22s %8s %9s %9s %9s %9s%n",
+                "timing (us)", "count", "p50", "p99", "p999", "max"));
+        for (Map.Entry<String, Histogram> entry : HISTOGRAMS.entrySet()) {
+            Histogram histogram = entry.getValue();
+            if (histogram.getCount() == 0) {
+                continue;
+            }
+            report.append(String.format("%-22s %8d %9.1f %9.1f %9.1f %9.1f%n", entry.getKey(), histogram.getCount(),
+                    histogram.getPercentile(50) / 1e3, histogram.getPercentile(99) / 1e3,
+                    histogram.getPercentile(99.9) / 1e3, histogram.getMax() / 1e3));
+        }
+        return report.toString();
+    }
+
+    /**
+     * Writes the report to a file at a fixed rate in the background, while collection is switched on.
+     * The file is replaced as a whole each time, so it never holds half a report.
+     *
+     * @param filePath Path to the file that the report is written to.
+     * @param periodMillis Time in milliseconds between reports.
+     */
+    public static synchronized void startPeriodicDump(String filePath, long periodMillis) {
+        if (dumper != null) {
+            return;
+        }
+        dumper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "boo-metrics");
+            thread.setDaemon(true);
+            return thread;
+        });
+        Path path = Paths.get(filePath);
+        dumper.scheduleAtFixedRate(() -> {
+            if (isEnabled) {
+                dump(path);
+            }
+        }, periodMillis, periodMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private static void dump(Path path) {
+        Path tempPath = Paths.get(path + ".tmp");
+        try {
+            Storage.createParentDirectories(tempPath.toFile());
+            Files.writeString(tempPath, report(), StandardCharsets.UTF_8);
+            Files.move(tempPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            // The next dump tries again
+        }
+    }
+}
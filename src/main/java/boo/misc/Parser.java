@@ -19,6 +19,15 @@ public class Parser {
     private final Ui ui;
     private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("dd/MM/yyyy");
     private static final DateTimeFormatter DATE_TIME_FORMAT = DateTimeFormatter.ofPattern("dd/MM/yyyy HHmm");
+    private static final CommandRouter<TaskParser> TASK_PARSERS = createTaskParsers();
+
+    /**
+     * Represents a way of turning user input into a task of a specific type.
+     */
+    @FunctionalInterface
+    private interface TaskParser {
+        Task parse(String message) throws BooException;
+    }
 
     /**
      * Constructs a parser that parses user inputs.
@@ -40,25 +49,36 @@ public class Parser {
      * @throws BooException If input by user is incomplete or if user types an invalid input.
      */
     public static Task parseTask(String message) throws BooException {
-        Task task;
         assert message != null : "Message should not be null";
         assert !message.trim().isEmpty() : "Message should not be empty";
 
-        if (message.toLowerCase().startsWith("todo")) {
-            return parseTodoTask(message);
-        } else if (message.toLowerCase().startsWith("deadline")) {
-            return parseDeadlineTask(message);
-        } else if (message.toLowerCase().startsWith("event")) {
-            return parseEventTask(message);
-        } else {
+        TaskParser taskParser = TASK_PARSERS.route(message);
+        if (taskParser == null) {
             throw new BooException("Oops, Boo does not understand what you mean :(\n"
                     + "Please use these keywords: \n"
                     + "1. list: list your task list\n"
                     + "2. mark: mark a specific task as done (please specify which taskID)\n"
                     + "3. unmark: unmark a specific task as done (please specify which taskID)\n"
                     + "4. delete: delete a specific task from the list (please specify which taskID)\n"
-                    + "5. todo/event/deadline: add a todo/event/deadline task\n");
+                    + "5. todo/event/deadline: add a todo/event/deadline task\n"
+                    + "6. find: find tasks with a keyword, e.g. 'find book' or 'find --archived book'\n"
+                    + "7. due before: list deadlines due before a date, e.g. 'due before 07/03/2025'\n"
+                    + "8. on: list deadlines and events on a day, e.g. 'on 07/03/2025'\n"
+                    + "9. between: list deadlines and events between two dates, "
+                    + "e.g. 'between 01/03/2025 and 07/03/2025'\n"
+                    + "10. undo/redo: undo or redo your last change\n"
+                    + "11. archive: move your done tasks into the archive\n"
+                    + "12. stats: show how long Boo takes to respond ('stats on', 'stats off' or 'stats reset')\n");
         }
+        return taskParser.parse(message);
+    }
+
+    private static CommandRouter<TaskParser> createTaskParsers() {
+        CommandRouter<TaskParser> taskParsers = new CommandRouter<>();
+        taskParsers.register("todo", Parser::parseTodoTask);
+        taskParsers.register("deadline", Parser::parseDeadlineTask);
+        taskParsers.register("event", Parser::parseEventTask);
+        return taskParsers;
     }
 
     /**
@@ -0,0 +1,811 @@
+package boo.misc;
+
+import boo.task.Event;
+import boo.task.Task;
+
+import java.io.BufferedWriter;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Represents a BinaryStorage that splits the task history into segments, one for each month that tasks start in and
+ * one for the tasks without a date, so that its cost follows the tasks in use rather than the whole history.
+ *
+ * Each segment is a file in BinaryStorage's format, which is memory-mapped when it is loaded. A text manifest
+ * next to them lists every segment with its number of tasks and the latest date of any task in it. Only the
+ * undated segment and the segments around the current month are loaded at first; the others are loaded once a
+ * command changes one of their tasks. The counts in the manifest tell which segment holds a task ID, so a command
+ * on one task only loads that task's segment, and queries read the unloaded segments that they need without
+ * loading them.
+ *
+ * Each segment has a journal of its own. A change is appended to the journal of the segment it falls in, so it
+ * costs one small write no matter how large the segment is, and a group of changes costs one sync for each
+ * segment it touches. Once the journals grow past a threshold, they are folded into their segments on a
+ * background thread, and the manifest is updated with them. A full save only rewrites the loaded segments whose
+ * tasks have changed, and never touches the others.
+ *
+ * The manifest's count for a segment may be out of date while the segment has journal records, or while the
+ * segment is being rewritten, which the manifest marks. Those segments are loaded at first, so their counts are
+ * taken from their tasks instead.
+ *
+ * If the manifest does not exist yet, the tasks are migrated from a legacy storage the first time they are
+ * loaded. The legacy storage is left as it is. The archive is kept in the same folder as the segments.
+ */
+public class SegmentedStorage extends BinaryStorage {
+    private static final String MANIFEST = "manifest.txt";
+    private static final String ARCHIVE = "archive.txt.gz";
+    private static final String UNDATED = "undated";
+    private static final String SEGMENT_EXTENSION = ".bin";
+    private static final String JOURNAL_EXTENSION = ".journal";
+    private static final String SEPARATOR = " || ";
+    private static final String NO_DATE = "-";
+    private static final String BEING_WRITTEN = "writing";
+    // Number of months before and after the current month whose segments are loaded at first
+    private static final int HOT_MONTHS = Integer.getInteger("boo.hotMonths", 1);
+    private static final long COMPACTION_THRESHOLD = 1 << 18;
+    private static final Histogram SAVE_TIME = Metrics.histogram("storage.save");
+    private static final Histogram LOAD_TIME = Metrics.histogram("storage.load");
+
+    private final Path directory;
+    private final Storage legacyStorage;
+    private final Clock clock;
+    private final int hotMonths;
+    private final long compactionThreshold;
+
+    // Held while segment files, their journals or the manifest are written, and guards the fields below
+    private final Object ioLock = new Object();
+    // Storage of each segment that has been loaded or written, which keeps the segment's journal
+    private final Map<String, BinaryStorage> segmentStores = new HashMap<>();
+    // Segments whose storages have loaded or written their files, so that their journals can be appended to
+    private final Set<String> openSegments = new HashSet<>();
+
+    // Held briefly while the segments are read or changed in memory, and guards the fields below. The storage's
+    // own lock and the I/O lock are left free, so that changes can still be made while a save is being written
+    private final Object segmentLock = new Object();
+    // Every saved segment by its key, with undated before the months in order
+    private final SortedMap<String, Segment> manifest = new TreeMap<>(SegmentedStorage::compareKeys);
+    // Tasks of the loaded segments with every change made to them, including segments that are now empty
+    private final Map<String, List<Task>> loadedSegments = new HashMap<>();
+    // Number of changes made to each loaded segment that have not been appended to its journal yet
+    private final Map<String, Integer> pendingChanges = new HashMap<>();
+    // Size in bytes of the records in the journal of each segment that has any
+    private final Map<String, Long> journaledSegments = new HashMap<>();
+    private long journalSize;
+    private Future<?> compaction;
+    private ExecutorService compactor;
+    // Whether the journals are being folded, and whether they should be folded again once that is done
+    private boolean isCompacting;
+    private boolean isCompactionRequested;
+    // Number of tasks in the segments that are not loaded, which readers check without taking any lock
+    private volatile int unloadedTaskCount;
+
+    /**
+     * Represents the summary of one segment that is kept in the manifest.
+     *
+     * @param taskCount Number of tasks in the segment.
+     * @param latestDate Latest date of any task in the segment, or null if the tasks have no dates.
+     * @param isBeingWritten Whether the segment was being rewritten when the manifest was written.
+     */
+    private record Segment(int taskCount, LocalDateTime latestDate, boolean isBeingWritten) {
+    }
+
+    /**
+     * Constructs a SegmentedStorage that keeps its segments in a folder and migrates tasks from a legacy storage.
+     *
+     * @param directoryPath Path to the folder that the segments will be stored in.
+     * @param legacyStorage Storage that the task history used to be stored in, or null if there is none.
+     */
+    public SegmentedStorage(String directoryPath, Storage legacyStorage) {
+        this(directoryPath, legacyStorage, Clock.systemDefaultZone(), HOT_MONTHS, COMPACTION_THRESHOLD);
+    }
+
+    SegmentedStorage(String directoryPath, Storage legacyStorage, Clock clock, int hotMonths,
+            long compactionThreshold) {
+        super(Paths.get(directoryPath, MANIFEST).toString(), true, compactionThreshold);
+        assert hotMonths >= 0 : "Number of hot months must not be negative";
+        this.directory = Paths.get(directoryPath);
+        this.legacyStorage = legacyStorage;
+        this.clock = clock;
+        this.hotMonths = hotMonths;
+        this.compactionThreshold = compactionThreshold;
+    }
+
+    /**
+     * Returns the tasks in the undated segment, in the segments around the current month, and in the segments
+     * whose counts in the manifest may be out of date, with their journals applied.
+     * Every other segment is left unloaded.
+     *
+     * @return Loaded tasks, in order of their task IDs.
+     * @throws BooException If there was a problem loading or migrating the tasks.
+     */
+    @Override
+    public List<Task> loadTasksFromFile() throws BooException {
+        if (!Files.exists(directory.resolve(MANIFEST)) && legacyStorage != null) {
+            migrate();
+        }
+        awaitCompaction();
+        long startTime = Metrics.startTimer();
+        List<Task> tasks = new ArrayList<>();
+        synchronized (ioLock) {
+            closeSegmentStores();
+            Set<String> keys = new TreeSet<>(SegmentedStorage::compareKeys);
+            Set<String> journaledKeys;
+            synchronized (segmentLock) {
+                manifest.clear();
+                loadedSegments.clear();
+                pendingChanges.clear();
+                journaledSegments.clear();
+                journalSize = 0;
+                try {
+                    readManifest();
+                    journaledKeys = findJournaledSegments();
+                } catch (IOException e) {
+                    throw new BooException("Oops! Something went wrong! Boo couldn't load your tasks :(\n");
+                } finally {
+                    updateUnloadedTaskCount();
+                }
+                YearMonth month = YearMonth.now(clock);
+                LocalDateTime from = month.minusMonths(hotMonths).atDay(1).atStartOfDay();
+                LocalDateTime to = month.plusMonths(hotMonths + 1).atDay(1).atStartOfDay().minusNanos(1);
+                for (Map.Entry<String, Segment> entry : manifest.entrySet()) {
+                    String key = entry.getKey();
+                    Segment segment = entry.getValue();
+                    if (key.equals(UNDATED) || segment.isBeingWritten() || overlaps(key, segment, from, to)) {
+                        keys.add(key);
+                    }
+                }
+                keys.addAll(journaledKeys);
+            }
+            try {
+                for (String key : keys) {
+                    List<Task> segmentTasks = new ArrayList<>(getSegmentStore(key).loadTasksFromFile());
+                    openSegments.add(key);
+                    synchronized (segmentLock) {
+                        loadedSegments.put(key, segmentTasks);
+                        if (journaledKeys.contains(key) || manifest.containsKey(key)
+                                && manifest.get(key).isBeingWritten()) {
+                            // The segment is folded into its file and settled in the manifest in the background
+                            long size = Files.size(getJournalPath(key));
+                            journaledSegments.put(key, size);
+                            journalSize += size;
+                        }
+                    }
+                    tasks.addAll(segmentTasks);
+                }
+            } catch (IOException e) {
+                throw new BooException("Oops! Something went wrong! Boo couldn't load your tasks :(\n");
+            } finally {
+                synchronized (segmentLock) {
+                    updateUnloadedTaskCount();
+                }
+                Metrics.stopTimer(LOAD_TIME, startTime);
+            }
+        }
+        startSegmentCompaction(true);
+        return tasks;
+    }
+
+    /**
+     * Returns the keys of the segments whose journals have records that are not in their files yet.
+     * Must be called while holding the segment lock.
+     */
+    private Set<String> findJournaledSegments() throws IOException {
+        Set<String> keys = new HashSet<>();
+        if (!Files.isDirectory(directory)) {
+            return keys;
+        }
+        try (DirectoryStream<Path> journals = Files.newDirectoryStream(directory,
+                "*" + SEGMENT_EXTENSION + JOURNAL_EXTENSION)) {
+            for (Path journal : journals) {
+                String fileName = journal.getFileName().toString();
+                String key = fileName.substring(0, fileName.length()
+                        - SEGMENT_EXTENSION.length() - JOURNAL_EXTENSION.length());
+                if (isValidKey(key) && hasRecords(journal)) {
+                    keys.add(key);
+                }
+            }
+        }
+        return keys;
+    }
+
+    private static boolean hasRecords(Path journal) throws IOException {
+        String content = new String(Files.readAllBytes(journal), StandardCharsets.UTF_8);
+        int headerEnd = content.indexOf('\n');
+        return headerEnd >= 0 && !content.substring(headerEnd + 1).trim().isEmpty();
+    }
+
+    @Override
+    public int getUnloadedTaskCount() {
+        return unloadedTaskCount;
+    }
+
+    /**
+     * Counts the tasks in the segments that are not loaded again.
+     * Must be called while holding the segment lock.
+     */
+    private void updateUnloadedTaskCount() {
+        int count = 0;
+        for (Map.Entry<String, Segment> entry : manifest.entrySet()) {
+            if (!loadedSegments.containsKey(entry.getKey())) {
+                count += entry.getValue().taskCount();
+            }
+        }
+        unloadedTaskCount = count;
+    }
+
+    /**
+     * Returns each segment that is not loaded, by the first day of its month.
+     * Tasks without dates are kept at the earliest possible date, since they come before every other task.
+     *
+     * @return Unloaded segments, in order of their months.
+     */
+    @Override
+    public SortedMap<LocalDateTime, TaskGroup> getUnloadedTaskGroups() {
+        SortedMap<LocalDateTime, TaskGroup> groups = new TreeMap<>();
+        synchronized (segmentLock) {
+            for (Map.Entry<String, Segment> entry : manifest.entrySet()) {
+                String key = entry.getKey();
+                if (!loadedSegments.containsKey(key)) {
+                    Segment segment = entry.getValue();
+                    LocalDateTime startsBefore = key.equals(UNDATED)
+                            ? null
+                            : YearMonth.parse(key).plusMonths(1).atDay(1).atStartOfDay();
+                    groups.put(getStartDate(key), new TaskGroup(segment.taskCount(), startsBefore,
+                            segment.latestDate()));
+                }
+            }
+        }
+        return groups;
+    }
+
+    /**
+     * Reads the tasks of a segment that is not loaded.
+     * Only loaded segments are ever written, and unloaded segments have no journal records, so no lock is needed.
+     *
+     * @param date First day of the segment's month, as returned by {@link #getUnloadedTaskGroups()}.
+     * @return Tasks in the segment, in order of their dates.
+     * @throws BooException If there was a problem reading the tasks.
+     */
+    @Override
+    public List<Task> readTaskGroup(LocalDateTime date) throws BooException {
+        long startTime = Metrics.startTimer();
+        List<Task> tasks = new ArrayList<>();
+        try {
+            readSnapshot(getSegmentPath(getKey(date)), tasks);
+        } catch (IOException e) {
+            throw new BooException("Oops! Something went wrong! Boo couldn't load your tasks :(\n");
+        } finally {
+            Metrics.stopTimer(LOAD_TIME, startTime);
+        }
+        return tasks;
+    }
+
+    /**
+     * Marks a segment as loaded, so that changes to its tasks are saved from then on.
+     *
+     * @param date First day of the segment's month, as returned by {@link #getUnloadedTaskGroups()}.
+     * @param tasks Tasks in the segment, as they were read.
+     */
+    @Override
+    public void addLoadedTaskGroup(LocalDateTime date, List<Task> tasks) {
+        synchronized (segmentLock) {
+            loadedSegments.putIfAbsent(getKey(date), new ArrayList<>(tasks));
+            updateUnloadedTaskCount();
+        }
+    }
+
+    /**
+     * Applies a change to the loaded segment that it falls in, and returns a record of it for that segment's
+     * journal, in the form "key || record".
+     * The segment is found by counting the tasks in the segments before it, so the task ID in the record is
+     * the task's position within its segment.
+     */
+    @Override
+    protected String formatChange(Change change, int taskId, Task task) {
+        synchronized (segmentLock) {
+            String key;
+            int segmentTaskId = taskId;
+            if (change == Change.ADD) {
+                key = getKey(task);
+                assert loadedSegments.containsKey(key) || !manifest.containsKey(key) : "Segment must be loaded";
+                insertByDate(loadedSegments.computeIfAbsent(key, newKey -> new ArrayList<>()), task);
+            } else {
+                Set<String> keys = new TreeSet<>(SegmentedStorage::compareKeys);
+                keys.addAll(manifest.keySet());
+                keys.addAll(loadedSegments.keySet());
+                key = null;
+                for (String candidate : keys) {
+                    List<Task> segmentTasks = loadedSegments.get(candidate);
+                    int taskCount = segmentTasks != null ? segmentTasks.size() : manifest.get(candidate).taskCount();
+                    if (segmentTaskId <= taskCount) {
+                        key = candidate;
+                        break;
+                    }
+                    segmentTaskId -= taskCount;
+                }
+                assert key != null && loadedSegments.containsKey(key) : "Segment must be loaded";
+                List<Task> segmentTasks = loadedSegments.get(key);
+                if (change == Change.DELETE) {
+                    segmentTasks.remove(segmentTaskId - 1);
+                } else {
+                    segmentTasks.set(segmentTaskId - 1, task);
+                }
+            }
+            pendingChanges.merge(key, 1, Integer::sum);
+            return key + SEPARATOR + super.formatChange(change, segmentTaskId, task);
+        }
+    }
+
+    /**
+     * Appends records made by {@link #formatChange(Change, int, Task)} to the journals of their segments, with
+     * one sync for each segment. Starts folding the journals into their segments if they have grown past the
+     * threshold.
+     * If a segment's records could not be saved, the records of the segments that were saved are taken out of
+     * the list, so that only the others are saved again.
+     *
+     * @param records Records of the changes, in the order they were made.
+     * @param tasks Loaded tasks in order of their task IDs, after the changes.
+     * @throws BooException If the records were not saved successfully.
+     */
+    @Override
+    protected void appendToJournal(List<String> records, Collection<Task> tasks) throws BooException {
+        Map<String, List<String>> segmentRecords = new TreeMap<>(SegmentedStorage::compareKeys);
+        for (String record : records) {
+            int separatorIndex = record.indexOf(SEPARATOR);
+            segmentRecords.computeIfAbsent(record.substring(0, separatorIndex), key -> new ArrayList<>())
+                    .add(record.substring(separatorIndex + SEPARATOR.length()));
+        }
+        Set<String> savedKeys = new HashSet<>();
+        synchronized (ioLock) {
+            try {
+                for (Map.Entry<String, List<String>> entry : segmentRecords.entrySet()) {
+                    String key = entry.getKey();
+                    openSegmentStore(key).appendToJournal(entry.getValue(), List.of());
+                    savedKeys.add(key);
+                    long size = 0;
+                    for (String record : entry.getValue()) {
+                        size += record.length() + 1;
+                    }
+                    synchronized (segmentLock) {
+                        int changeCount = entry.getValue().size();
+                        pendingChanges.computeIfPresent(key, (pendingKey, count) ->
+                                count > changeCount ? count - changeCount : null);
+                        journaledSegments.merge(key, size, Long::sum);
+                        journalSize += size;
+                    }
+                }
+            } catch (BooException e) {
+                if (!savedKeys.isEmpty()) {
+                    records.removeIf(record -> savedKeys.contains(record.substring(0, record.indexOf(SEPARATOR))));
+                }
+                throw e;
+            }
+        }
+        startSegmentCompaction(false);
+    }
+
+    /**
+     * Returns the storage of a segment, loading its file and journal first if it has not done so yet.
+     * Must be called while holding the I/O lock.
+     */
+    private BinaryStorage openSegmentStore(String key) throws BooException {
+        BinaryStorage store = getSegmentStore(key);
+        if (!openSegments.contains(key)) {
+            store.loadTasksFromFile();
+            openSegments.add(key);
+        }
+        return store;
+    }
+
+    /**
+     * Returns the storage of a segment, which never folds its journal into its file by itself.
+     * Must be called while holding the I/O lock.
+     */
+    private BinaryStorage getSegmentStore(String key) {
+        return segmentStores.computeIfAbsent(key,
+                newKey -> new BinaryStorage(getSegmentPath(newKey).toString(), true, Long.MAX_VALUE));
+    }
+
+    /**
+     * Folds the segments' journals into their files on a background thread, if the journals have grown past
+     * the threshold or if the folding is forced. If they are already being folded, they are folded again
+     * afterwards, since the records that were just appended may have been left out.
+     */
+    private void startSegmentCompaction(boolean isForced) {
+        synchronized (segmentLock) {
+            boolean isDue = isForced ? !journaledSegments.isEmpty() : journalSize >= compactionThreshold;
+            if (!isDue) {
+                return;
+            } else if (isCompacting) {
+                isCompactionRequested = true;
+                return;
+            }
+            isCompacting = true;
+            if (compactor == null) {
+                compactor = Executors.newSingleThreadExecutor(runnable -> {
+                    Thread thread = new Thread(runnable, "boo-segment-compactor");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+            }
+            compaction = compactor.submit(() -> {
+                do {
+                    compactSegments();
+                } while (isCompactionRequested());
+            });
+        }
+    }
+
+    private boolean isCompactionRequested() {
+        synchronized (segmentLock) {
+            isCompacting = isCompactionRequested;
+            isCompactionRequested = false;
+            return isCompacting;
+        }
+    }
+
+    /**
+     * Rewrites the segments that have journal records from their tasks, which empties their journals.
+     * Segments with changes that have not been appended to their journals yet are left for the next time, since
+     * their tasks are ahead of their journals.
+     */
+    private void compactSegments() {
+        synchronized (ioLock) {
+            Map<String, List<Task>> segments = new TreeMap<>(SegmentedStorage::compareKeys);
+            synchronized (segmentLock) {
+                for (String key : journaledSegments.keySet()) {
+                    if (!pendingChanges.containsKey(key)) {
+                        segments.put(key, new ArrayList<>(loadedSegments.get(key)));
+                    }
+                }
+            }
+            try {
+                writeSegments(segments);
+            } catch (BooException e) {
+                // The journals are still complete, so the next change simply tries again
+            }
+        }
+    }
+
+    /**
+     * Waits for the segments' journals that are being folded in the background, if any.
+     */
+    @Override
+    void awaitCompaction() {
+        super.awaitCompaction();
+        Future<?> pendingCompaction;
+        synchronized (segmentLock) {
+            pendingCompaction = compaction;
+        }
+        if (pendingCompaction == null) {
+            return;
+        }
+        try {
+            pendingCompaction.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            // Failed compactions leave the journals untouched
+        }
+    }
+
+    /**
+     * Saves the changes that are waiting to be saved, folds the segments' journals into their files so that the
+     * next load only loads the segments it needs, and releases the journals and the background threads.
+     *
+     * @throws BooException If the tasks were not saved successfully.
+     */
+    @Override
+    public void close() throws BooException {
+        super.close();
+        compactSegments();
+        synchronized (ioLock) {
+            closeSegmentStores();
+        }
+        synchronized (segmentLock) {
+            if (compactor != null) {
+                compactor.shutdown();
+                compactor = null;
+            }
+        }
+    }
+
+    /**
+     * Releases the journals of the segments, which are opened again when they are next written to.
+     * Must be called while holding the I/O lock.
+     */
+    private void closeSegmentStores() throws BooException {
+        try {
+            for (BinaryStorage store : segmentStores.values()) {
+                store.close();
+            }
+        } finally {
+            segmentStores.clear();
+            openSegments.clear();
+        }
+    }
+
+    /**
+     * Returns whether a month's segment may hold a task that falls in the range.
+     * The segment covers the whole month, and any later dates that its tasks last until.
+     */
+    private static boolean overlaps(String key, Segment segment, LocalDateTime from, LocalDateTime to) {
+        YearMonth month = YearMonth.parse(key);
+        LocalDateTime start = month.atDay(1).atStartOfDay();
+        LocalDateTime end = month.plusMonths(1).atDay(1).atStartOfDay().minusNanos(1);
+        if (segment.latestDate() != null && segment.latestDate().isAfter(end)) {
+            end = segment.latestDate();
+        }
+        return !start.isAfter(to) && !end.isBefore(from);
+    }
+
+    /**
+     * Rewrites the loaded segments whose tasks are not the same as when they were last saved, and the segments
+     * with changes whose records were dropped, since the tasks already contain those changes.
+     * Tasks are never changed once they are in the task list, so comparing them by identity is enough to find
+     * the segments that changed.
+     *
+     * @param tasks Loaded tasks in order of their task IDs.
+     * @throws BooException If tasks were not saved successfully.
+     */
+    @Override
+    protected void writeTasksToFile(Collection<Task> tasks) throws BooException {
+        long startTime = Metrics.startTimer();
+        Map<String, List<Task>> segments = new HashMap<>();
+        for (Task task : tasks) {
+            segments.computeIfAbsent(getKey(task), key -> new ArrayList<>()).add(task);
+        }
+        try {
+            synchronized (ioLock) {
+                Map<String, List<Task>> changedSegments = new TreeMap<>(SegmentedStorage::compareKeys);
+                synchronized (segmentLock) {
+                    Set<String> keys = new HashSet<>(loadedSegments.keySet());
+                    keys.addAll(segments.keySet());
+                    for (String key : keys) {
+                        List<Task> segmentTasks = segments.getOrDefault(key, List.of());
+                        if (pendingChanges.containsKey(key) || !isSameTasks(loadedSegments.get(key), segmentTasks)) {
+                            changedSegments.put(key, segmentTasks);
+                        }
+                    }
+                }
+                writeSegments(changedSegments);
+                synchronized (segmentLock) {
+                    for (Map.Entry<String, List<Task>> segment : changedSegments.entrySet()) {
+                        loadedSegments.put(segment.getKey(), new ArrayList<>(segment.getValue()));
+                        pendingChanges.remove(segment.getKey());
+                    }
+                }
+            }
+        } finally {
+            Metrics.stopTimer(SAVE_TIME, startTime);
+        }
+    }
+
+    private static boolean isSameTasks(List<Task> savedTasks, List<Task> tasks) {
+        if (savedTasks == null || savedTasks.size() != tasks.size()) {
+            return savedTasks == null && tasks.isEmpty();
+        }
+        for (int i = 0; i < tasks.size(); i++) {
+            if (savedTasks.get(i) != tasks.get(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Rewrites segments from their tasks, which empties their journals, and deletes the segments that are empty.
+     * The manifest marks the segments as being written until every one of them is, so that a crash in between
+     * loads them at first instead of trusting their counts.
+     * Must be called while holding the I/O lock.
+     */
+    private void writeSegments(Map<String, List<Task>> segments) throws BooException {
+        if (segments.isEmpty()) {
+            return;
+        }
+        try {
+            SortedMap<String, Segment> markedManifest;
+            synchronized (segmentLock) {
+                for (Map.Entry<String, List<Task>> segment : segments.entrySet()) {
+                    manifest.put(segment.getKey(), summarize(segment.getValue(), true));
+                }
+                markedManifest = new TreeMap<>(manifest);
+            }
+            writeManifest(markedManifest);
+            for (Map.Entry<String, List<Task>> segment : segments.entrySet()) {
+                String key = segment.getKey();
+                if (segment.getValue().isEmpty()) {
+                    deleteSegment(key);
+                } else {
+                    getSegmentStore(key).saveTasksToFile(segment.getValue());
+                    openSegments.add(key);
+                }
+            }
+            SortedMap<String, Segment> settledManifest;
+            synchronized (segmentLock) {
+                for (Map.Entry<String, List<Task>> segment : segments.entrySet()) {
+                    String key = segment.getKey();
+                    List<Task> segmentTasks = segment.getValue();
+                    if (segmentTasks.isEmpty()) {
+                        manifest.remove(key);
+                    } else {
+                        manifest.put(key, summarize(segmentTasks, false));
+                    }
+                    Long size = journaledSegments.remove(key);
+                    if (size != null) {
+                        journalSize -= size;
+                    }
+                }
+                settledManifest = new TreeMap<>(manifest);
+            }
+            writeManifest(settledManifest);
+        } catch (IOException e) {
+            throw new BooException("Oops! Something went wrong! Boo couldn't save your tasks :(\n");
+        }
+    }
+
+    /**
+     * Deletes the file and journal of a segment that no longer has any tasks.
+     * Must be called while holding the I/O lock.
+     */
+    private void deleteSegment(String key) throws BooException, IOException {
+        BinaryStorage store = segmentStores.remove(key);
+        openSegments.remove(key);
+        if (store != null) {
+            store.close();
+        }
+        Files.deleteIfExists(getSegmentPath(key));
+        Files.deleteIfExists(getJournalPath(key));
+    }
+
+    private static Segment summarize(List<Task> tasks, boolean isBeingWritten) {
+        LocalDateTime latestDate = null;
+        for (Task task : tasks) {
+            LocalDateTime date = task instanceof Event event ? event.getEndDate() : task.getStartDate();
+            if (date != null && (latestDate == null || date.isAfter(latestDate))) {
+                latestDate = date;
+            }
+        }
+        return new Segment(tasks.size(), latestDate, isBeingWritten);
+    }
+
+    private void readManifest() throws IOException, BooException {
+        Path path = directory.resolve(MANIFEST);
+        if (!Files.exists(path)) {
+            return;
+        }
+        for (String line : Files.readAllLines(path, StandardCharsets.UTF_8)) {
+            if (line.trim().isEmpty()) {
+                continue;
+            }
+            String[] fields = line.split(" \\|\\| ");
+            try {
+                String key = fields[0].trim();
+                if (!isValidKey(key)) {
+                    throw new IllegalArgumentException("Invalid segment key: " + key);
+                }
+                String latestDate = fields[2].trim();
+                boolean isBeingWritten = fields.length > 3 && fields[3].trim().equals(BEING_WRITTEN);
+                manifest.put(key, new Segment(Integer.parseInt(fields[1].trim()),
+                        latestDate.equals(NO_DATE) ? null : LocalDateTime.parse(latestDate), isBeingWritten));
+            } catch (RuntimeException e) {
+                throw new BooException("Oh no! Invalid segment in manifest: " + line + "\n");
+            }
+        }
+    }
+
+    private void writeManifest(Map<String, Segment> segments) throws IOException {
+        Path path = directory.resolve(MANIFEST);
+        Path tempPath = Paths.get(path + ".tmp");
+        createParentDirectories(tempPath.toFile());
+        FileOutputStream output = new FileOutputStream(tempPath.toFile());
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8))) {
+            for (Map.Entry<String, Segment> entry : segments.entrySet()) {
+                Segment segment = entry.getValue();
+                writer.write(entry.getKey() + SEPARATOR + segment.taskCount() + SEPARATOR
+                        + (segment.latestDate() == null ? NO_DATE : segment.latestDate())
+                        + (segment.isBeingWritten() ? SEPARATOR + BEING_WRITTEN : "") + "\n");
+            }
+            writer.flush();
+            output.getFD().sync();
+        }
+        Files.move(tempPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Splits the tasks of the legacy storage into segments and writes the manifest that lists them.
+     * The manifest is written last, so that a migration that was cut off starts again.
+     */
+    private void migrate() throws BooException {
+        List<Task> tasks = legacyStorage.loadTasksFromFile();
+        Map<String, List<Task>> segments = new TreeMap<>(SegmentedStorage::compareKeys);
+        for (Task task : tasks) {
+            segments.computeIfAbsent(getKey(task), key -> new ArrayList<>()).add(task);
+        }
+        Map<String, Segment> migratedManifest = new TreeMap<>(SegmentedStorage::compareKeys);
+        try {
+            for (Map.Entry<String, List<Task>> segment : segments.entrySet()) {
+                Path path = getSegmentPath(segment.getKey());
+                Path tempPath = Paths.get(path + ".tmp");
+                writeSnapshot(segment.getValue(), tempPath);
+                Files.move(tempPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                migratedManifest.put(segment.getKey(), summarize(segment.getValue(), false));
+            }
+            writeManifest(migratedManifest);
+        } catch (IOException e) {
+            throw new BooException("Oops! Something went wrong! Boo couldn't upgrade your saved tasks :(\n");
+        }
+    }
+
+    @Override
+    protected Path getArchivePath() {
+        return directory.resolve(ARCHIVE);
+    }
+
+    private Path getSegmentPath(String key) {
+        return directory.resolve(key + SEGMENT_EXTENSION);
+    }
+
+    private Path getJournalPath(String key) {
+        return directory.resolve(key + SEGMENT_EXTENSION + JOURNAL_EXTENSION);
+    }
+
+    private static LocalDateTime getStartDate(String key) {
+        return key.equals(UNDATED) ? LocalDateTime.MIN : YearMonth.parse(key).atDay(1).atStartOfDay();
+    }
+
+    private static String getKey(Task task) {
+        return task.getStartDate() == null ? UNDATED : getKey(task.getStartDate());
+    }
+
+    private static String getKey(LocalDateTime date) {
+        return date.equals(LocalDateTime.MIN) ? UNDATED : YearMonth.from(date).toString();
+    }
+
+    private static boolean isValidKey(String key) {
+        if (key.equals(UNDATED)) {
+            return true;
+        }
+        try {
+            YearMonth.parse(key);
+            return true;
+        } catch (DateTimeParseException e) {
+            return false;
+        }
+    }
+
+    private static int compareKeys(String key1, String key2) {
+        if (key1.equals(key2)) {
+            return 0;
+        } else if (key1.equals(UNDATED) || key2.equals(UNDATED)) {
+            return key1.equals(UNDATED) ? -1 : 1;
+        }
+        return YearMonth.parse(key1).compareTo(YearMonth.parse(key2));
+    }
+}
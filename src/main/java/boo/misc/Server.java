@@ -0,0 +1,329 @@
+package boo.misc;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.regex.Pattern;
+
+import boo.Boo;
+
+/**
+ * Represents a headless server that keeps a separate task list for each of its users.
+ *
+ * Clients connect to a local port and talk in lines: the first line names the user, e.g. "user alice", and every
+ * line after it is a command. Each response is followed by a line with a single ".", and response lines that
+ * start with "." get another "." in front, like in SMTP. "bye" closes the connection. Users can see Boo's
+ * timings with "stats", but cannot switch them or reset them, since they are shared by every user.
+ *
+ * A user's tasks are loaded when they first connect and are kept in memory for the next connection. Once there
+ * are too many users in memory, or memory runs low, the users who have been idle the longest are saved and
+ * dropped. Commands from the same user are carried out one at a time, while different users never wait for each
+ * other.
+ */
+public class Server {
+    private static final Pattern USER_NAME = Pattern.compile("[A-Za-z0-9_-]{1,64}");
+    // Timings are kept for the whole process, so no single user may switch them or reset them
+    private static final Pattern STATS_CHANGE = Pattern.compile("stats\\s*(on|off|reset)", Pattern.CASE_INSENSITIVE);
+    // Share of the maximum heap above which an idle user is dropped whenever another user is loaded
+    private static final double MEMORY_PRESSURE = 0.75;
+
+    private final Ui ui = new Ui();
+    private final Path dataDirectory;
+    private final int maxTenants;
+    // Users in memory, from the least to the most recently used, guarded by the map's lock
+    private final LinkedHashMap<String, Tenant> tenants = new LinkedHashMap<>(16, 0.75f, true);
+    // Users that were dropped but are still being saved
+    private final Map<String, Tenant> closingTenants = new ConcurrentHashMap<>();
+    private final ExecutorService connectionExecutor = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "boo-connection");
+        thread.setDaemon(true);
+        return thread;
+    });
+    // Connections that are open, so that they can be closed when the server stops
+    private final Set<Socket> connections = ConcurrentHashMap.newKeySet();
+    private ServerSocket serverSocket;
+    private volatile boolean isStopping;
+
+    /**
+     * Represents one user's task list, which is loaded the first time it is needed.
+     */
+    private static final class Tenant {
+        private final String name;
+        private final Storage storage;
+        private final CountDownLatch closed = new CountDownLatch(1);
+        // Guarded by this tenant's lock
+        private Tenant previous;
+        private Boo boo;
+        private boolean isClosed;
+        // Guarded by the lock of the server's tenants
+        private int sessionCount;
+
+        private Tenant(String name, Path directory, Tenant previous) {
+            this.name = name;
+            this.storage = new SegmentedStorage(directory.resolve("tasks").toString(), new BinaryStorage(
+                    directory.resolve("Boo.bin").toString(), directory.resolve("Boo.txt").toString()));
+            this.previous = previous;
+        }
+
+        /**
+         * Returns the user's response to an input, loading the user's tasks first if needed.
+         */
+        private synchronized String getResponse(String input) throws BooException {
+            if (isClosed) {
+                throw new BooException("Oh no! Boo is shutting down, so it cannot take any more commands.\n");
+            }
+            if (boo == null) {
+                if (previous != null) {
+                    // The same user's tasks may still be being saved after they were last dropped
+                    previous.awaitClosed();
+                    previous = null;
+                }
+                boo = new Boo(storage);
+            }
+            return boo.getResponse(input);
+        }
+
+        private synchronized void close() throws BooException {
+            isClosed = true;
+            try {
+                storage.close();
+            } finally {
+                boo = null;
+                closed.countDown();
+            }
+        }
+
+        private void awaitClosed() {
+            try {
+                closed.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Constructs a server that keeps each user's tasks in their own folder.
+     *
+     * @param dataDirectory Folder that holds a folder for each user.
+     * @param maxTenants Number of users whose tasks can be kept in memory at once.
+     */
+    public Server(Path dataDirectory, int maxTenants) {
+        assert maxTenants > 0 : "At least one user must fit in memory";
+        this.dataDirectory = dataDirectory;
+        this.maxTenants = maxTenants;
+    }
+
+    /**
+     * Starts accepting connections from this computer on a background thread.
+     *
+     * @param port Port to listen on, or 0 for any free port.
+     * @return Port that the server listens on.
+     * @throws IOException If the port could not be listened on.
+     */
+    public int start(int port) throws IOException {
+        serverSocket = new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+        Thread acceptor = new Thread(this::acceptConnections, "boo-server");
+        acceptor.start();
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * Stops accepting connections, closes the open ones and saves every user's tasks.
+     * Commands that arrive after a user's tasks were saved are refused.
+     *
+     * @throws BooException If some user's tasks could not be saved.
+     */
+    public void stop() throws BooException {
+        isStopping = true;
+        try {
+            serverSocket.close();
+        } catch (IOException e) {
+            // The acceptor stops either way
+        }
+        for (Socket socket : connections) {
+            try {
+                // Wakes up the connection's thread, which is blocked reading the next command
+                socket.close();
+            } catch (IOException e) {
+                // The connection is closed either way
+            }
+        }
+        connectionExecutor.shutdownNow();
+        List<Tenant> remainingTenants;
+        synchronized (tenants) {
+            remainingTenants = new ArrayList<>(tenants.values());
+            tenants.clear();
+        }
+        for (Tenant tenant : remainingTenants) {
+            tenant.close();
+        }
+    }
+
+    private void acceptConnections() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                connections.add(socket);
+                if (isStopping) {
+                    socket.close();
+                    connections.remove(socket);
+                    continue;
+                }
+                connectionExecutor.execute(() -> serve(socket));
+            } catch (IOException e) {
+                // The server socket was closed
+            }
+        }
+    }
+
+    private void serve(Socket socket) {
+        Tenant tenant = null;
+        try (socket;
+                BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(),
+                        StandardCharsets.UTF_8));
+                Writer out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(),
+                        StandardCharsets.UTF_8))) {
+            String input;
+            while ((input = in.readLine()) != null) {
+                input = input.trim();
+                if (input.equalsIgnoreCase("bye")) {
+                    respond(out, ui.printGoodbyeMessage());
+                    break;
+                }
+                if (tenant == null) {
+                    tenant = login(input, out);
+                    continue;
+                }
+                if (STATS_CHANGE.matcher(input).matches()) {
+                    respond(out, "Oops! Boo's timings are shared by everyone, so only whoever runs Boo can "
+                            + "switch them or reset them.\n");
+                    continue;
+                }
+                String response;
+                try {
+                    response = tenant.getResponse(input);
+                } catch (BooException e) {
+                    response = e.getMessage();
+                }
+                respond(out, response);
+            }
+        } catch (IOException e) {
+            // The client went away
+        } finally {
+            connections.remove(socket);
+            if (tenant != null) {
+                release(tenant);
+            }
+        }
+    }
+
+    private Tenant login(String input, Writer out) throws IOException {
+        String[] words = input.split("\\s+");
+        if (words.length != 2 || !words[0].equalsIgnoreCase("user") || !USER_NAME.matcher(words[1]).matches()) {
+            respond(out, "Oops! Boo needs to know who you are first, e.g. 'user alice'.\n"
+                    + "Names can only have letters, digits, '-' and '_'.\n");
+            return null;
+        }
+        Tenant tenant = acquire(words[1]);
+        if (tenant == null) {
+            respond(out, "Oh no! Boo is shutting down. Please try again later.\n");
+            return null;
+        }
+        respond(out, "Hello " + words[1] + "! What can Boo do for you today?\n");
+        return tenant;
+    }
+
+    /**
+     * Returns the tenant with the given name, adding it if it is not in memory.
+     *
+     * @return The tenant, or null if the server is stopping.
+     */
+    private Tenant acquire(String name) {
+        List<Tenant> evictedTenants = new ArrayList<>();
+        Tenant tenant;
+        synchronized (tenants) {
+            // Checked under the lock, so that a tenant is never added after stop() has taken the tenants
+            if (isStopping) {
+                return null;
+            }
+            tenant = tenants.get(name);
+            if (tenant == null) {
+                tenant = new Tenant(name, dataDirectory.resolve(name), closingTenants.get(name));
+                tenants.put(name, tenant);
+            }
+            tenant.sessionCount++;
+            evictIdleTenants(evictedTenants);
+        }
+        evictedTenants.forEach(this::close);
+        return tenant;
+    }
+
+    private void release(Tenant tenant) {
+        synchronized (tenants) {
+            tenant.sessionCount--;
+        }
+    }
+
+    /**
+     * Removes the least recently used tenants without connections while there are too many tenants in memory.
+     * If memory is running low, one more such tenant is removed.
+     * Must be called while holding the lock of the tenants.
+     */
+    private void evictIdleTenants(List<Tenant> evictedTenants) {
+        Runtime runtime = Runtime.getRuntime();
+        boolean isMemoryLow = runtime.totalMemory() - runtime.freeMemory() > runtime.maxMemory() * MEMORY_PRESSURE;
+        int excess = tenants.size() - maxTenants + (isMemoryLow ? 1 : 0);
+        Iterator<Tenant> iterator = tenants.values().iterator();
+        while (excess > 0 && iterator.hasNext()) {
+            Tenant tenant = iterator.next();
+            if (tenant.sessionCount == 0) {
+                iterator.remove();
+                closingTenants.put(tenant.name, tenant);
+                evictedTenants.add(tenant);
+                excess--;
+            }
+        }
+    }
+
+    private void close(Tenant tenant) {
+        try {
+            tenant.close();
+        } catch (BooException e) {
+            System.err.print(e.getMessage());
+        } finally {
+            closingTenants.remove(tenant.name, tenant);
+        }
+    }
+
+    private static void respond(Writer out, String response) throws IOException {
+        String body = response.endsWith("\n") ? response.substring(0, response.length() - 1) : response;
+        for (String line : body.split("\n", -1)) {
+            if (line.startsWith(".")) {
+                out.write('.');
+            }
+            out.write(line);
+            out.write('\n');
+        }
+        out.write(".\n");
+        out.flush();
+    }
+}
@@ -1,27 +1,97 @@
 package boo.misc;
 
-import boo.task.Deadline;
-import boo.task.Event;
 import boo.task.Task;
-import boo.task.Todo;
 
-import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.ByteArrayInputStream;
 import java.io.File;
-import java.io.FileWriter;
+import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.FileReader;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.SortedMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
 
 /**
  * Represents a class that is in charge of storing and loading the task history into a hard disk.
+ * In journal mode, each change is appended to a journal file next to the task file instead of
+ * rewriting the whole task file. The journal is replayed on top of the task file when loading,
+ * and is folded back into the task file in the background once it grows past a size threshold.
+ *
+ * Tasks that are done with can be moved into an archive next to the task file, which is compressed with gzip
+ * and only read when archived tasks are looked for. Each batch of archived tasks is added to the archive as a
+ * gzip member of its own that is appended to the archive, so archiving only writes the tasks being archived. The
+ * length of the archive up to its last whole member is kept in a file next to it, so a member that a crash cut
+ * off is never read and is written over by the next batch.
  */
 public class Storage {
+    /**
+     * Types of changes that can be recorded in the journal.
+     */
+    public enum Change {
+        ADD, DELETE, MARK, UNMARK
+    }
+
+    private static final long DEFAULT_COMPACTION_THRESHOLD = 1 << 20;
+    private static final int LOAD_CHUNK_SIZE = 1 << 18;
+    private static final int MAX_REPORTED_ERRORS = 5;
+    private static final String JOURNAL_HEADER = "SNAPSHOT";
+    private static final String SEPARATOR = " || ";
+    private static final Histogram SAVE_TIME = Metrics.histogram("storage.save");
+    private static final Histogram LOAD_TIME = Metrics.histogram("storage.load");
+    private static final Histogram JOURNAL_TIME = Metrics.histogram("storage.journal");
+
     private final String filePath;
+    private final boolean isJournaled;
+    private final long compactionThreshold;
+
+    // Journal state, guarded by this Storage's lock
+    private final List<String> journalRecords = new ArrayList<>();
+    private Writer journalWriter;
+    private FileOutputStream journalOutput;
+    private long journalSize;
+    private long snapshotChecksum;
+    private Future<?> compaction;
+    private ExecutorService compactor;
+
+    // Write-behind state, guarded by this Storage's lock
+    private ScheduledExecutorService saver;
+    private long saveDelayMillis;
+    private int maxPendingChanges;
+    private Collection<Task> pendingTasks;
+    // Journal records of the waiting changes, in the order they were made, in journal mode
+    private final List<String> pendingRecords = new ArrayList<>();
+    private int pendingChangeCount;
+    private ScheduledFuture<?> pendingSave;
+    // Held for the whole of a save, so that a flush waits for a save that is already being written
+    private final Object saveLock = new Object();
 
     /**
      * Constructs a Storage object that allows the task history to be stored in a hard disk.
@@ -29,162 +99,758 @@ public class Storage {
      * @param filePath Path to the file that the task history will be stored in.
      */
     public Storage(String filePath) {
+        this(filePath, false);
+    }
+
+    /**
+     * Constructs a Storage object that can record changes in a journal instead of rewriting the file.
+     *
+     * @param filePath Path to the file that the task history will be stored in.
+     * @param isJournaled Whether changes should be appended to a journal.
+     */
+    public Storage(String filePath, boolean isJournaled) {
+        this(filePath, isJournaled, DEFAULT_COMPACTION_THRESHOLD);
+    }
+
+    /**
+     * Constructs a journaled Storage object with a custom compaction threshold.
+     *
+     * @param filePath Path to the file that the task history will be stored in.
+     * @param isJournaled Whether changes should be appended to a journal.
+     * @param compactionThreshold Size of the journal in bytes after which it is folded into the task file.
+     */
+    public Storage(String filePath, boolean isJournaled, long compactionThreshold) {
+        assert compactionThreshold > 0 : "Compaction threshold must be positive";
         this.filePath = filePath;
+        this.isJournaled = isJournaled;
+        this.compactionThreshold = compactionThreshold;
     }
 
     /**
      * Saves task history into a file.
      * If a file has not been created, it creates a file for the task history to be saved into.
+     * In journal mode, the journal is emptied since the file now contains every change.
+     * Changes that were waiting to be saved in the background are already part of the given tasks.
+     *
+     * @param tasks Tasks in order of their task IDs.
+     * @throws BooException If tasks were not saved successfully.
+     */
+    public void saveTasksToFile(Collection<Task> tasks) throws BooException {
+        assert filePath != null && !filePath.trim().isEmpty() : "Invalid file path";
+        synchronized (saveLock) {
+            takePendingSave();
+            writeTasksToFile(tasks);
+        }
+    }
+
+    /**
+     * Writes the tasks into the task file, emptying the journal in journal mode.
+     * Subclasses that keep the tasks somewhere else can override this to write them there instead, and every
+     * save, whether made straight away or in the background, goes through it.
      *
-     * @param taskMap Hashmap that contains a list of the task IDs and tasks.
+     * @param tasks Tasks in order of their task IDs.
      * @throws BooException If tasks were not saved successfully.
      */
-    public void saveTasksToFile(HashMap<Integer, Task> taskMap) throws BooException {
+    protected void writeTasksToFile(Collection<Task> tasks) throws BooException {
+        awaitCompaction();
+        long startTime = Metrics.startTimer();
+        synchronized (this) {
+            try {
+                Path tempPath = getTempPath();
+                long checksum = writeSnapshot(new ArrayList<>(tasks), tempPath);
+                Files.move(tempPath, Paths.get(filePath),
+                        StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                if (isJournaled) {
+                    snapshotChecksum = checksum;
+                    journalRecords.clear();
+                    rewriteJournal(JOURNAL_HEADER + " " + checksum + " 0", journalRecords);
+                }
+            } catch (IOException e) {
+                throw new BooException("Oops! Something went wrong! Boo couldn't save your tasks :(\n");
+            } finally {
+                Metrics.stopTimer(SAVE_TIME, startTime);
+            }
+        }
+    }
+
+    /**
+     * Saves changes in the background instead of as soon as they are made.
+     * A burst of changes is saved with a single write, once no change has been made for the given delay or once
+     * the given number of changes are waiting, whichever comes first. In journal mode, the changes are appended
+     * to the journal together, and otherwise the whole task list is written.
+     * Changes that are still waiting are saved when the program exits.
+     *
+     * @param delayMillis Time in milliseconds to wait after the latest change before saving.
+     * @param maxPendingChanges Number of changes after which the tasks are saved without waiting any longer.
+     */
+    public synchronized void enableWriteBehind(long delayMillis, int maxPendingChanges) {
+        assert delayMillis >= 0 && maxPendingChanges > 0 : "Invalid write-behind settings";
+        saveDelayMillis = delayMillis;
+        this.maxPendingChanges = maxPendingChanges;
+        if (saver == null) {
+            saver = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "boo-saver");
+                thread.setDaemon(true);
+                return thread;
+            });
+            Runtime.getRuntime().addShutdownHook(new Thread(this::flushInBackground, "boo-saver-shutdown"));
+        }
+    }
+
+    /**
+     * Saves the changes that are waiting to be saved in the background, if any.
+     * Waits for a save that is already being written to finish.
+     *
+     * @throws BooException If the tasks were not saved successfully.
+     */
+    public void flush() throws BooException {
+        synchronized (saveLock) {
+            PendingSave save = takePendingSave();
+            if (save == null) {
+                return;
+            }
+            try {
+                if (isJournaled) {
+                    appendToJournal(save.records(), save.tasks());
+                } else {
+                    writeTasksToFile(save.tasks());
+                }
+            } catch (BooException e) {
+                restorePendingSave(save);
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Saves the changes that are waiting to be saved and releases the journal file and background threads.
+     * The storage can still be used afterwards, and opens the journal again when it is next written to.
+     *
+     * @throws BooException If the tasks were not saved successfully.
+     */
+    public void close() throws BooException {
+        flush();
+        awaitCompaction();
+        synchronized (this) {
+            try {
+                closeJournal();
+            } catch (IOException e) {
+                throw new BooException("Oops! Something went wrong! Boo couldn't save your tasks :(\n");
+            }
+            if (compactor != null) {
+                compactor.shutdown();
+                compactor = null;
+            }
+        }
+    }
+
+    private void flushInBackground() {
         try {
-            File file = new File(filePath);
-            assert filePath != null && !filePath.trim().isEmpty() : "Invalid file path";
+            flush();
+        } catch (BooException e) {
+            // The tasks are still pending, so the next change or the shutdown hook tries again
+        }
+    }
+
+    private synchronized void schedulePendingSave(Collection<Task> tasks) {
+        pendingTasks = tasks;
+        pendingChangeCount++;
+        if (pendingSave != null) {
+            pendingSave.cancel(false);
+        }
+        long delayMillis = pendingChangeCount >= maxPendingChanges ? 0 : saveDelayMillis;
+        pendingSave = saver.schedule(this::flushInBackground, delayMillis, TimeUnit.MILLISECONDS);
+    }
 
-            // Create directories if they do not exist
-            file.getParentFile().mkdirs();
+    /**
+     * Represents the changes that were waiting to be saved, as the tasks after the latest of them and their
+     * journal records.
+     */
+    private record PendingSave(Collection<Task> tasks, List<String> records) {
+    }
 
-            // Write into the file
-            FileWriter writer = new FileWriter(file);
-            for (Map.Entry<Integer, Task> entry : taskMap.entrySet()) {
-                int taskId = entry.getKey();
-                Task task = entry.getValue();
-                assert task != null : "Task should not be null";
+    private synchronized PendingSave takePendingSave() {
+        PendingSave save = pendingTasks == null ? null : new PendingSave(pendingTasks, new ArrayList<>(pendingRecords));
+        pendingTasks = null;
+        pendingRecords.clear();
+        pendingChangeCount = 0;
+        if (pendingSave != null) {
+            pendingSave.cancel(false);
+            pendingSave = null;
+        }
+        return save;
+    }
+
+    private synchronized void restorePendingSave(PendingSave save) {
+        // Changes made since the save was taken come after its changes, and their tasks are newer
+        pendingRecords.addAll(0, save.records());
+        if (pendingTasks == null) {
+            pendingTasks = save.tasks();
+        }
+        pendingChangeCount++;
+    }
+
+    /**
+     * Saves a single change to the task list.
+     * With write-behind enabled, the change is saved in the background together with the changes around it.
+     * In journal mode, only the change is appended to the journal, and without a journal the whole task list is
+     * saved.
+     *
+     * @param change Type of change made to the task list.
+     * @param taskId ID of the affected task, before the change was made.
+     * @param task Task that was affected.
+     * @param tasks Tasks in order of their task IDs, after the change.
+     * @throws BooException If the change was not saved successfully.
+     */
+    public void saveChange(Change change, int taskId, Task task, Collection<Task> tasks) throws BooException {
+        String record = isJournaled ? formatChange(change, taskId, task) : null;
+        synchronized (this) {
+            if (saver != null) {
+                if (isJournaled) {
+                    pendingRecords.add(record);
+                }
+                schedulePendingSave(tasks);
+                return;
+            }
+        }
+        if (!isJournaled) {
+            saveTasksToFile(tasks);
+            return;
+        }
+        appendToJournal(List.of(record), tasks);
+    }
+
+    /**
+     * Returns the journal record of a change.
+     * It is called once for each change in journal mode, in the order the changes are made, so subclasses that
+     * keep their own journals can override it to follow the changes.
+     *
+     * @param change Type of change made to the task list.
+     * @param taskId ID of the affected task, before the change was made.
+     * @param task Task that was affected.
+     * @return Record of the change.
+     */
+    protected String formatChange(Change change, int taskId, Task task) {
+        return change + SEPARATOR + (change == Change.ADD ? task.toStorageString() : taskId);
+    }
 
-                String taskString = formatTask(entry.getKey(), entry.getValue());
-                writer.write(taskString + "\n");
+    /**
+     * Appends records to the journal with a single write and forces them to the disk once, so that a group of
+     * changes costs a single sync. Starts folding the journal into the task file if it has grown past the
+     * threshold.
+     *
+     * @param records Records of the changes, in the order they were made.
+     * @param tasks Tasks in order of their task IDs, after the changes.
+     * @throws BooException If the records were not saved successfully.
+     */
+    protected synchronized void appendToJournal(List<String> records, Collection<Task> tasks) throws BooException {
+        long startTime = Metrics.startTimer();
+        try {
+            if (journalWriter == null) {
+                openJournal();
+            }
+            for (String record : records) {
+                journalWriter.write(record + "\n");
             }
-            writer.close();
+            journalWriter.flush();
+            journalOutput.getFD().sync();
         } catch (IOException e) {
             throw new BooException("Oops! Something went wrong! Boo couldn't save your tasks :(\n");
+        } finally {
+            Metrics.stopTimer(JOURNAL_TIME, startTime);
+        }
+        for (String record : records) {
+            journalRecords.add(record);
+            journalSize += record.length() + 1;
+        }
+        if (journalSize >= compactionThreshold && (compaction == null || compaction.isDone())) {
+            startCompaction(new ArrayList<>(tasks));
         }
     }
 
-
     private String formatTask(int taskId, Task task) {
-        String formattedTask = "taskID: " + taskId + " || " + task.getClass().getSimpleName() + " task || ";
-        formattedTask += "isDone: " + task.isDone() + " || ";
-
-        // Handle the task description based on its type
-        String description = task.getDescription();
-        assert description != null && !description.trim().isEmpty() : "Task description should not be empty";
-        if (task instanceof Deadline deadlineTask) {
-            formattedTask += description + " (by: " + deadlineTask.getFormattedDeadline() + ")";
-        } else if (task instanceof Event eventTask) {
-            formattedTask += description + " (from: " + eventTask.getFormattedStartTime() + " to: " + eventTask.getFormattedEndTime() + ")";
-        } else {
-            formattedTask += description;
-        }
-        return formattedTask;
+        return "taskID: " + taskId + SEPARATOR + task.toStorageString();
     }
 
     /**
      * Returns tasks that were saved in the file prior.
-     * If file does not exist or is empty, an empty hashmap is returned.
+     * If file does not exist or is empty, an empty list is returned.
+     * In journal mode, changes recorded in the journal are applied on top of the tasks in the file.
      *
-     * @return Hashmap of all the tasks that were present in the file.
-     * @throws BooException If there was a problem loading the tasks in the file to the hashmap.
+     * @return List of all the tasks that were present in the file, in order of their task IDs.
+     * @throws BooException If there was a problem loading the tasks in the file.
      */
-    public HashMap<Integer, Task> loadTasksFromFile() throws BooException {
-        HashMap<Integer, Task> taskMap = new HashMap<>();
+    public List<Task> loadTasksFromFile() throws BooException {
         File file = new File(filePath);
         assert filePath != null && !filePath.trim().isEmpty() : "Invalid file path";
 
-        // If file does not exist or is empty, return an empty map
-        if (!file.exists() || file.length() == 0) {
-            return taskMap;
+        long startTime = Metrics.startTimer();
+        List<Task> tasks = new ArrayList<>();
+        long checksum = 0;
+        // If file does not exist or is empty, start from an empty list
+        if (file.exists() && file.length() > 0) {
+            try {
+                checksum = readSnapshot(file.toPath(), tasks);
+            } catch (IOException e) {
+                throw new BooException("Oops! Something went wrong! Boo couldn't load your tasks :(\n");
+            }
         }
-        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
-            String taskLine;
-            while ((taskLine = reader.readLine()) != null) {
-                if (taskLine.trim().isEmpty()) {
-                    continue; // skip empty lines
-                }
-                Task task = parseTask(taskLine, taskMap);
-                if (task != null) {
-                    taskMap.put(taskMap.size() + 1, task);
+        if (isJournaled) {
+            replayJournal(tasks, checksum);
+        }
+        Metrics.stopTimer(LOAD_TIME, startTime);
+        return tasks;
+    }
+
+    /**
+     * Returns the number of saved tasks that have not been loaded yet.
+     * A Storage loads every task at once, so this is always 0 unless a subclass loads tasks on demand.
+     *
+     * @return Number of tasks that are saved but not loaded.
+     */
+    public int getUnloadedTaskCount() {
+        return 0;
+    }
+
+    /**
+     * Represents a group of saved tasks that is loaded as a whole.
+     *
+     * @param taskCount Number of tasks in the group.
+     * @param startsBefore Date that every task in the group starts before, or null if the tasks have no dates.
+     * @param endDate Latest date of any task in the group, or null if the tasks have no dates.
+     */
+    public record TaskGroup(int taskCount, LocalDateTime startsBefore, LocalDateTime endDate) {
+    }
+
+    /**
+     * Returns each group of saved tasks that has not been loaded yet, by the earliest date that a task in the
+     * group may start on, or the earliest possible date for tasks without dates.
+     * Each group is loaded as a whole, and its tasks start before any loaded task or later group that starts on
+     * or after its date, so task IDs can be mapped to a group without loading it.
+     * A Storage loads every task at once, so this is always empty unless a subclass loads tasks on demand.
+     *
+     * @return Unloaded groups of tasks, in order of their dates.
+     */
+    public SortedMap<LocalDateTime, TaskGroup> getUnloadedTaskGroups() {
+        return Collections.emptySortedMap();
+    }
+
+    /**
+     * Reads the tasks of one group that has not been loaded yet, and leaves the group unloaded.
+     * Unloaded groups are never written, so this takes no lock and can run alongside changes being saved.
+     *
+     * @param date Date of the group, as returned by {@link #getUnloadedTaskGroups()}.
+     * @return Tasks in the group, in order of their dates.
+     * @throws BooException If there was a problem reading the tasks.
+     */
+    public List<Task> readTaskGroup(LocalDateTime date) throws BooException {
+        return List.of();
+    }
+
+    /**
+     * Marks a group of tasks that was read with {@link #readTaskGroup(LocalDateTime)} as loaded, so that its
+     * tasks are saved together with the loaded tasks from then on.
+     *
+     * @param date Date of the group, as returned by {@link #getUnloadedTaskGroups()}.
+     * @param tasks Tasks in the group, as they were read.
+     * @throws BooException If there was a problem loading the group.
+     */
+    public void addLoadedTaskGroup(LocalDateTime date, List<Task> tasks) throws BooException {
+    }
+
+    /**
+     * Appends tasks to the archive as a new gzip member and forces it to the disk.
+     * Anything after the last whole member, which a crash may have left behind, is cut off first.
+     *
+     * @param tasks Tasks to archive.
+     * @throws BooException If the tasks could not be archived.
+     */
+    public synchronized void archiveTasks(List<Task> tasks) throws BooException {
+        Path archivePath = getArchivePath();
+        createParentDirectories(archivePath.toFile());
+        try (FileChannel channel = FileChannel.open(archivePath, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE)) {
+            channel.truncate(readArchiveLength(channel.size()));
+            channel.position(channel.size());
+            long archiveLength;
+            GZIPOutputStream gzipOutput = new GZIPOutputStream(Channels.newOutputStream(channel));
+            try (Writer writer = new BufferedWriter(new OutputStreamWriter(gzipOutput, StandardCharsets.UTF_8))) {
+                int taskId = 1;
+                for (Task task : tasks) {
+                    writer.write(formatTask(taskId++, task) + "\n");
                 }
+                writer.flush();
+                gzipOutput.finish();
+                channel.force(true);
+                archiveLength = channel.size();
             }
+            writeArchiveLength(archiveLength);
         } catch (IOException e) {
-            throw new BooException("Oops! Something went wrong! Boo couldn't load your tasks :(\n");
+            throw new BooException("Oops! Something went wrong! Boo couldn't archive your tasks :(\n");
+        }
+    }
+
+    /**
+     * Returns the length of the archive up to its last whole member.
+     * Archives written before the length was kept are taken to be whole.
+     */
+    private long readArchiveLength(long archiveSize) throws IOException {
+        Path lengthPath = getArchiveLengthPath();
+        if (!Files.exists(lengthPath)) {
+            return archiveSize;
+        }
+        try {
+            return Math.min(archiveSize, Long.parseLong(Files.readString(lengthPath).trim()));
+        } catch (NumberFormatException e) {
+            throw new IOException("Invalid archive length", e);
+        }
+    }
+
+    private void writeArchiveLength(long archiveLength) throws IOException {
+        Path lengthPath = getArchiveLengthPath();
+        Path tempPath = Paths.get(lengthPath + ".tmp");
+        try (FileOutputStream output = new FileOutputStream(tempPath.toFile())) {
+            output.write((archiveLength + "\n").getBytes(StandardCharsets.UTF_8));
+            output.getFD().sync();
+        }
+        Files.move(tempPath, lengthPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Returns the tasks in the archive, in the order they were archived.
+     * If the archive does not exist yet, an empty list is returned.
+     *
+     * @return Archived tasks.
+     * @throws BooException If there was a problem reading the archive.
+     */
+    public synchronized List<Task> loadArchivedTasks() throws BooException {
+        Path archivePath = getArchivePath();
+        if (!Files.exists(archivePath)) {
+            return new ArrayList<>();
+        }
+        byte[] bytes;
+        try {
+            byte[] archive = Files.readAllBytes(archivePath);
+            int archiveLength = (int) readArchiveLength(archive.length);
+            if (archiveLength == 0) {
+                return new ArrayList<>();
+            }
+            try (InputStream input = new GZIPInputStream(new ByteArrayInputStream(archive, 0, archiveLength))) {
+                bytes = input.readAllBytes();
+            }
+        } catch (IOException e) {
+            throw new BooException("Oops! Something went wrong! Boo couldn't load your archived tasks :(\n");
+        }
+        ParsedChunk parsedChunk = parseChunk(bytes, 0, bytes.length);
+        if (!parsedChunk.errors().isEmpty()) {
+            throw new BooException("Oh no! Boo found " + parsedChunk.errors().size()
+                    + " invalid task(s) in the archive.\n" + String.join("", parsedChunk.errors().subList(0,
+                    Math.min(parsedChunk.errors().size(), MAX_REPORTED_ERRORS))));
+        }
+        return parsedChunk.tasks();
+    }
+
+    /**
+     * Returns the path of the archive, which is next to the task file.
+     */
+    protected Path getArchivePath() {
+        return Paths.get(filePath + ".archive.gz");
+    }
+
+    private Path getArchiveLengthPath() {
+        return Paths.get(getArchivePath() + ".length");
+    }
+
+    /**
+     * Reads the tasks in the given file.
+     * Large files are split into chunks of whole lines that are parsed in parallel and then joined in order.
+     * Invalid lines do not stop the other lines from being parsed, and are reported together by byte offset.
+     *
+     * @param path Path of the file to read.
+     * @param tasks List that the tasks are added to, in order of their task IDs.
+     * @return Checksum of the file, which identifies the tasks in it.
+     * @throws IOException If the file could not be read.
+     * @throws BooException If the file contains an invalid task.
+     */
+    protected long readSnapshot(Path path, List<Task> tasks) throws IOException, BooException {
+        byte[] bytes = Files.readAllBytes(path);
+        CRC32 checksum = new CRC32();
+        checksum.update(bytes);
+
+        List<int[]> chunks = splitIntoChunks(bytes);
+        List<ParsedChunk> parsedChunks = chunks.size() == 1
+                ? List.of(parseChunk(bytes, chunks.get(0)[0], chunks.get(0)[1]))
+                : chunks.parallelStream().map(chunk -> parseChunk(bytes, chunk[0], chunk[1])).toList();
+
+        List<String> errors = new ArrayList<>();
+        for (ParsedChunk parsedChunk : parsedChunks) {
+            tasks.addAll(parsedChunk.tasks());
+            errors.addAll(parsedChunk.errors());
+        }
+        if (!errors.isEmpty()) {
+            throw new BooException("Oh no! Boo found " + errors.size() + " invalid task(s) in the file.\n"
+                    + String.join("", errors.subList(0, Math.min(errors.size(), MAX_REPORTED_ERRORS))));
         }
-        return taskMap;
+        return checksum.getValue();
+    }
+
+    /**
+     * Represents the tasks and the errors found in one chunk of a file.
+     */
+    private record ParsedChunk(List<Task> tasks, List<String> errors) {
     }
 
-    private Task parseTask(String line, HashMap<Integer, Task> taskMap) throws BooException {
-        // Split line by "||"
-        String[] details = line.split("\\|\\|");
-        assert details.length >= 4 : "Invalid task format in file";
-        if (details.length < 4) {
-            throw new BooException("Oh no! Invalid task format in file.\n"
-                    + "Expected 'taskID || taskType || isDone || description'.\n");
+    /**
+     * Splits the bytes of a file into chunks of roughly equal size that each end at a line break.
+     *
+     * @return Start and end offsets of each chunk.
+     */
+    private static List<int[]> splitIntoChunks(byte[] bytes) {
+        List<int[]> chunks = new ArrayList<>();
+        int start = 0;
+        while (start < bytes.length) {
+            int end = Math.min(bytes.length, start + LOAD_CHUNK_SIZE);
+            while (end < bytes.length && bytes[end - 1] != '\n') {
+                end++;
+            }
+            chunks.add(new int[] {start, end});
+            start = end;
         }
-        int taskId = Integer.parseInt(details[0].split(":")[1].trim());
-        String taskType = details[1].split(" task")[0].trim();
-        boolean isDone = Boolean.parseBoolean(details[2].split(":")[1].trim());
-        String description = details[3].trim();
-        assert description != null && !description.trim().isEmpty() : "Invalid task description";
+        if (chunks.isEmpty()) {
+            chunks.add(new int[] {0, 0});
+        }
+        return chunks;
+    }
 
-        Task task = switch (taskType) {
-            case "Todo" -> new Todo(description);
-            case "Deadline" -> createDeadline(description);
-            case "Event" -> createEvent(description);
-            default -> throw new BooException("Unknown task type in file.");
-        };
-        if (isDone) task.setAsDone();
-        return task;
+    private ParsedChunk parseChunk(byte[] bytes, int start, int end) {
+        List<Task> tasks = new ArrayList<>();
+        List<String> errors = new ArrayList<>();
+        int lineStart = start;
+        while (lineStart < end) {
+            int lineEnd = lineStart;
+            while (lineEnd < end && bytes[lineEnd] != '\n') {
+                lineEnd++;
+            }
+            String taskLine = new String(bytes, lineStart, lineEnd - lineStart, StandardCharsets.UTF_8);
+            if (!taskLine.trim().isEmpty()) { // skip empty lines
+                try {
+                    tasks.add(TaskLineParser.parse(taskLine));
+                } catch (BooException | RuntimeException e) {
+                    errors.add("At byte " + lineStart + ": " + taskLine.trim() + "\n");
+                }
+            }
+            lineStart = lineEnd + 1;
+        }
+        return new ParsedChunk(tasks, errors);
     }
 
-    private Deadline createDeadline(String description) throws BooException {
-        // Parsing Deadline: split by " (by: "
-        String[] details = description.split(" \\(by: ");
-        if (details.length < 2) {
-            throw new BooException("Oops! Deadline task is missing 'by' date.\n");
+    /**
+     * Applies the changes in the journal to the tasks loaded from the file.
+     * The journal header lists the checksums of the task files it can be applied to, together with the
+     * number of records that the matching task file already contains. If the task file matches none of
+     * them, every record in the journal is already part of the file.
+     */
+    private synchronized void replayJournal(List<Task> tasks, long checksum) throws BooException {
+        snapshotChecksum = checksum;
+        journalRecords.clear();
+        Path journalPath = getJournalPath();
+        try {
+            if (Files.exists(journalPath)) {
+                String journal = new String(Files.readAllBytes(journalPath), StandardCharsets.UTF_8);
+                String[] lines = journal.split("\n");
+                // A last line without a line break was cut off while it was being written
+                int end = journal.endsWith("\n") ? lines.length : lines.length - 1;
+                int start = findFirstUnappliedRecord(lines[0], checksum);
+                for (int i = start; i < end; i++) {
+                    applyRecord(tasks, lines[i]);
+                    journalRecords.add(lines[i]);
+                }
+            }
+            rewriteJournal(JOURNAL_HEADER + " " + checksum + " 0", journalRecords);
+        } catch (IOException e) {
+            throw new BooException("Oops! Something went wrong! Boo couldn't load your tasks :(\n");
         }
-        String taskDescription = details[0].trim();
-        String deadlineDate = details[1].replace(")", "").trim();
+    }
 
-        String formattedDeadline = convertToFormattedDateTime(deadlineDate);
+    private int findFirstUnappliedRecord(String header, long checksum) {
+        String[] fields = header.split(" ");
+        for (int i = 1; i + 1 < fields.length; i += 2) {
+            if (fields[i].equals(String.valueOf(checksum))) {
+                return Integer.parseInt(fields[i + 1]) + 1;
+            }
+        }
+        return Integer.MAX_VALUE;
+    }
 
-        // Create new Deadline task
-        return new Deadline(taskDescription, formattedDeadline);
+    private void applyRecord(List<Task> tasks, String record) throws BooException {
+        int separatorIndex = record.indexOf(SEPARATOR);
+        if (separatorIndex < 0) {
+            throw new BooException("Oh no! Invalid change in journal: " + record + "\n");
+        }
+        Change change = Change.valueOf(record.substring(0, separatorIndex));
+        if (change == Change.ADD) {
+            insertByDate(tasks, TaskLineParser.parse(record));
+            return;
+        }
+        int index = Integer.parseInt(record.substring(separatorIndex + SEPARATOR.length()).trim()) - 1;
+        if (index < 0 || index >= tasks.size()) {
+            throw new BooException("Oh no! Invalid change in journal: " + record + "\n");
+        }
+        switch (change) {
+        case DELETE -> tasks.remove(index);
+        case MARK -> tasks.set(index, tasks.get(index).withDone(true));
+        case UNMARK -> tasks.set(index, tasks.get(index).withDone(false));
+        default -> throw new BooException("Oh no! Invalid change in journal: " + record + "\n");
+        }
     }
 
-    private Event createEvent(String description) throws BooException {
-        // Parsing Event: split by " (from: " and " to: "
-        String[] details = description.split(" \\(from: ");
-        if (details.length < 2) {
-            throw new BooException("Oops! Event task is missing 'from' time.\n");
+    /**
+     * Inserts a task after every task with the same or an earlier date, which is where the task list
+     * places a newly added task.
+     */
+    protected static void insertByDate(List<Task> tasks, Task task) {
+        LocalDateTime date = task.getStartDate();
+        int low = 0;
+        int high = tasks.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            LocalDateTime midDate = tasks.get(mid).getStartDate();
+            boolean isAfterMid = midDate == null || (date != null && !date.isBefore(midDate));
+            if (isAfterMid) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
         }
-        String taskDescription = details[0].trim();
-        String[] timeDetails = details[1].split(" to: ");
-        String startTime = timeDetails[0].trim();
-        String endTime = timeDetails[1].split("\\)")[0].trim();
+        tasks.add(low, task);
+    }
 
-        // Convert "dd MMM yyy h:mm a" to "dd/MMM/yyy hhmm"
-        String formattedStartTime = convertToFormattedDateTime(startTime);
-        String formattedEndTime = convertToFormattedDateTime(endTime);
+    /**
+     * Folds the journal into the task file on a background thread.
+     * The tasks are written to a temporary file first. The journal header is then extended so that the
+     * journal stays correct for both the old and the new task file before the new file replaces the old one.
+     */
+    private void startCompaction(List<Task> tasks) {
+        int compactedRecords = journalRecords.size();
+        if (compactor == null) {
+            compactor = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "boo-compactor");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        compaction = compactor.submit(() -> compact(tasks, compactedRecords));
+    }
 
-        return new Event(taskDescription, formattedStartTime, formattedEndTime);
+    private void compact(List<Task> tasks, int compactedRecords) {
+        Path tempPath = getTempPath();
+        try {
+            long checksum = writeSnapshot(tasks, tempPath);
+            synchronized (this) {
+                rewriteJournal(JOURNAL_HEADER + " " + snapshotChecksum + " 0 " + checksum + " " + compactedRecords,
+                        journalRecords);
+                Files.move(tempPath, Paths.get(filePath),
+                        StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                snapshotChecksum = checksum;
+                journalRecords.subList(0, compactedRecords).clear();
+                rewriteJournal(JOURNAL_HEADER + " " + checksum + " 0", journalRecords);
+            }
+        } catch (IOException e) {
+            // The journal is still complete, so the next change simply tries again
+            tempPath.toFile().delete();
+        }
     }
 
-    private String convertToFormattedDateTime(String dateTime) throws BooException {
+    /**
+     * Waits for the journal compaction that is running in the background, if any.
+     */
+    void awaitCompaction() {
+        Future<?> pendingCompaction;
+        synchronized (this) {
+            pendingCompaction = compaction;
+        }
+        if (pendingCompaction == null) {
+            return;
+        }
         try {
-            LocalDateTime parsedDateTime = LocalDateTime.parse(dateTime, DateTimeFormatter.ofPattern("dd MMM yyyy h:mm a"));
-            return parsedDateTime.format(DateTimeFormatter.ofPattern("dd/MM/yyyy HHmm"));
-        } catch (Exception e) {
-            throw new BooException("Invalid date-time format: " + dateTime);
+            pendingCompaction.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            // Failed compactions leave the journal untouched
         }
     }
 
-}
+    /**
+     * Writes the tasks into the given file and forces it to the disk.
+     *
+     * @param tasks Tasks in order of their task IDs.
+     * @param path Path of the file to write.
+     * @return Checksum of the file, which identifies the tasks in it.
+     * @throws IOException If the file could not be written.
+     */
+    protected long writeSnapshot(List<Task> tasks, Path path) throws IOException {
+        File file = path.toFile();
+        createParentDirectories(file);
+        FileOutputStream output = new FileOutputStream(file);
+        CheckedOutputStream checkedOutput = new CheckedOutputStream(output, new CRC32());
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(checkedOutput, StandardCharsets.UTF_8))) {
+            int taskId = 1;
+            for (Task task : tasks) {
+                assert task != null : "Task should not be null";
+                writer.write(formatTask(taskId++, task) + "\n");
+            }
+            writer.flush();
+            output.getFD().sync();
+        }
+        return checkedOutput.getChecksum().getValue();
+    }
 
+    private void rewriteJournal(String header, List<String> records) throws IOException {
+        closeJournal();
+        Path tempPath = Paths.get(getJournalPath() + ".tmp");
+        createParentDirectories(tempPath.toFile());
+        FileOutputStream output = new FileOutputStream(tempPath.toFile());
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8))) {
+            writer.write(header + "\n");
+            for (String record : records) {
+                writer.write(record + "\n");
+            }
+            writer.flush();
+            output.getFD().sync();
+        }
+        Files.move(tempPath, getJournalPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        openJournal();
+    }
 
+    private void openJournal() throws IOException {
+        File journal = getJournalPath().toFile();
+        journalOutput = new FileOutputStream(journal, true);
+        journalWriter = new BufferedWriter(new OutputStreamWriter(journalOutput, StandardCharsets.UTF_8));
+        journalSize = journal.length();
+    }
 
+    private void closeJournal() throws IOException {
+        if (journalWriter != null) {
+            journalWriter.close();
+            journalWriter = null;
+            journalOutput = null;
+        }
+    }
 
+    protected static void createParentDirectories(File file) {
+        File parent = file.getAbsoluteFile().getParentFile();
+        if (parent != null) {
+            parent.mkdirs();
+        }
+    }
 
+    private Path getJournalPath() {
+        return Paths.get(filePath + ".journal");
+    }
 
+    private Path getTempPath() {
+        return Paths.get(filePath + ".tmp");
+    }
 
+}
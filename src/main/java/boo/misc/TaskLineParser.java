@@ -0,0 +1,194 @@
+package boo.misc;
+
+import boo.task.Deadline;
+import boo.task.Event;
+import boo.task.Task;
+import boo.task.Todo;
+
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+
+/**
+ * Represents a parser for the lines of the task file and the journal, e.g.
+ * "taskID: 2 || Deadline task || isDone: false || return book (by: 02 Feb 2023 12:00 am)".
+ * Each line is scanned once from left to right without regular expressions, and each date is parsed once,
+ * straight into the LocalDateTime that the task keeps.
+ */
+final class TaskLineParser {
+    private static final String FIELD_SEPARATOR = "||";
+    private static final String BY = " (by: ";
+    private static final String FROM = " (from: ";
+    private static final String TO = " to: ";
+    private static final String[] MONTHS = {
+        "jan", "feb", "mar", "apr", "may", "jun", "jul", "aug", "sep", "oct", "nov", "dec"
+    };
+    // Used for dates that were saved in a locale without English month names.
+    // Whether AM/PM is written in upper or lower case also depends on the locale that saved the file.
+    private static final DateTimeFormatter STORED_DATE_FORMAT = new DateTimeFormatterBuilder()
+            .parseCaseInsensitive()
+            .appendPattern("dd MMM yyyy h:mm a")
+            .toFormatter();
+
+    private TaskLineParser() {
+    }
+
+    /**
+     * Returns the task described by a line of the task file or the journal.
+     * The first field, i.e. the task ID or the type of change, is skipped.
+     *
+     * @param line Line to parse.
+     * @return Task described by the line.
+     * @throws BooException If the line is not a valid task.
+     */
+    static Task parse(String line) throws BooException {
+        int typeStart = line.indexOf(FIELD_SEPARATOR);
+        int doneStart = typeStart < 0 ? -1 : line.indexOf(FIELD_SEPARATOR, typeStart + 2);
+        int descriptionStart = doneStart < 0 ? -1 : line.indexOf(FIELD_SEPARATOR, doneStart + 2);
+        if (descriptionStart < 0) {
+            throw new BooException("Oh no! Invalid task format in file.\n"
+                    + "Expected 'taskID || taskType || isDone || description'.\n");
+        }
+        int start = skipSpaces(line, descriptionStart + 2, line.length());
+        int end = trimEnd(line, start, line.length());
+        if (start == end) {
+            throw new BooException("Oh no! Invalid task format in file.\n"
+                    + "Expected 'taskID || taskType || isDone || description'.\n");
+        }
+
+        int type = skipSpaces(line, typeStart + 2, doneStart);
+        Task task;
+        if (line.startsWith("Todo ", type)) {
+            task = new Todo(line.substring(start, end));
+        } else if (line.startsWith("Deadline ", type)) {
+            task = parseDeadline(line, start, end);
+        } else if (line.startsWith("Event ", type)) {
+            task = parseEvent(line, start, end);
+        } else {
+            throw new BooException("Unknown task type in file.");
+        }
+        return isDone(line, doneStart + 2, descriptionStart) ? task.withDone(true) : task;
+    }
+
+    private static boolean isDone(String line, int start, int end) {
+        int colon = line.indexOf(':', start);
+        if (colon < 0 || colon >= end) {
+            return false;
+        }
+        int value = skipSpaces(line, colon + 1, end);
+        return trimEnd(line, value, end) - value == 4 && line.regionMatches(true, value, "true", 0, 4);
+    }
+
+    private static Deadline parseDeadline(String line, int start, int end) throws BooException {
+        int by = line.lastIndexOf(BY, end);
+        int close = line.lastIndexOf(')', end - 1);
+        if (by < start || close < by) {
+            throw new BooException("Oops! Deadline task is missing 'by' date.\n");
+        }
+        String description = line.substring(start, trimEnd(line, start, by));
+        return new Deadline(description, parseDate(line, by + BY.length(), close));
+    }
+
+    private static Event parseEvent(String line, int start, int end) throws BooException {
+        int from = line.lastIndexOf(FROM, end);
+        if (from < start) {
+            throw new BooException("Oops! Event task is missing 'from' time.\n");
+        }
+        int to = line.indexOf(TO, from);
+        int close = line.lastIndexOf(')', end - 1);
+        if (to < 0 || close < to) {
+            throw new BooException("Oops! Event task is missing 'to' time.\n");
+        }
+        String description = line.substring(start, trimEnd(line, start, from));
+        return new Event(description, parseDate(line, from + FROM.length(), to),
+                parseDate(line, to + TO.length(), close));
+    }
+
+    /**
+     * Parses a date in the format dd MMM yyyy h:mm a, e.g. "02 Feb 2023 12:00 am".
+     */
+    private static LocalDateTime parseDate(String line, int start, int end) throws BooException {
+        start = skipSpaces(line, start, end);
+        end = trimEnd(line, start, end);
+        try {
+            int i = start;
+            int day = digit(line, i++, end) * 10 + digit(line, i++, end);
+            expect(line, i++, end, ' ');
+            int month = monthAt(line, i, end);
+            i += 3;
+            expect(line, i++, end, ' ');
+            int year = 0;
+            for (int j = 0; j < 4; j++) {
+                year = year * 10 + digit(line, i++, end);
+            }
+            expect(line, i++, end, ' ');
+            int hour = digit(line, i++, end);
+            if (i < end && line.charAt(i) != ':') {
+                hour = hour * 10 + digit(line, i++, end);
+            }
+            expect(line, i++, end, ':');
+            int minute = digit(line, i++, end) * 10 + digit(line, i++, end);
+            expect(line, i++, end, ' ');
+            if (end - i != 2 || !line.regionMatches(true, i + 1, "m", 0, 1)) {
+                throw new IllegalArgumentException();
+            }
+            boolean isPm = line.regionMatches(true, i, "p", 0, 1);
+            if (!isPm && !line.regionMatches(true, i, "a", 0, 1) || hour < 1 || hour > 12) {
+                throw new IllegalArgumentException();
+            }
+            return LocalDateTime.of(year, month, day, hour % 12 + (isPm ? 12 : 0), minute);
+        } catch (IllegalArgumentException e) {
+            return parseDateWithFormatter(line.substring(start, end));
+        } catch (DateTimeException e) {
+            throw new BooException("Invalid date-time format: " + line.substring(start, end));
+        }
+    }
+
+    private static LocalDateTime parseDateWithFormatter(String dateTime) throws BooException {
+        try {
+            return LocalDateTime.parse(dateTime, STORED_DATE_FORMAT);
+        } catch (DateTimeException e) {
+            throw new BooException("Invalid date-time format: " + dateTime);
+        }
+    }
+
+    private static int digit(String line, int index, int end) {
+        char c = index < end ? line.charAt(index) : ' ';
+        if (c < '0' || c > '9') {
+            throw new IllegalArgumentException();
+        }
+        return c - '0';
+    }
+
+    private static void expect(String line, int index, int end, char expected) {
+        if (index >= end || line.charAt(index) != expected) {
+            throw new IllegalArgumentException();
+        }
+    }
+
+    private static int monthAt(String line, int index, int end) {
+        if (index + 3 <= end) {
+            for (int month = 0; month < MONTHS.length; month++) {
+                if (line.regionMatches(true, index, MONTHS[month], 0, 3)) {
+                    return month + 1;
+                }
+            }
+        }
+        throw new IllegalArgumentException();
+    }
+
+    private static int skipSpaces(String line, int start, int end) {
+        while (start < end && Character.isWhitespace(line.charAt(start))) {
+            start++;
+        }
+        return start;
+    }
+
+    private static int trimEnd(String line, int start, int end) {
+        while (end > start && Character.isWhitespace(line.charAt(end - 1))) {
+            end--;
+        }
+        return end;
+    }
+}
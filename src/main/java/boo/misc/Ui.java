@@ -1,14 +1,58 @@
 package boo.misc;
 
+import boo.task.Event;
 import boo.task.Task;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
 
 /**
  * Represents a user interface that is in charge of interacting with the user.
  */
 public class Ui {
+    /** Number of tasks shown on each page of a listing. */
+    public static final int PAGE_SIZE = 20;
+    private static final int MAX_BUFFER_CAPACITY = 1 << 20;
+
+    // Each thread renders into its own buffer, so that a Ui can be shared by threads
+    private final ThreadLocal<StringBuilder> buffers = ThreadLocal.withInitial(StringBuilder::new);
+
+    /**
+     * Represents output that can be written to any character sink, e.g. a string or the console.
+     */
+    @FunctionalInterface
+    public interface Output {
+        void writeTo(Appendable out) throws BooException, IOException;
+    }
+
+    /**
+     * Returns the given output as a string.
+     * The same buffer is reused for every message, unless a message made it grow too large.
+     *
+     * @param output Output to render.
+     * @return Output as a string.
+     * @throws BooException If the output could not be produced.
+     */
+    public String render(Output output) throws BooException {
+        StringBuilder buffer = buffers.get();
+        buffer.setLength(0);
+        try {
+            output.writeTo(buffer);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // appending to a StringBuilder never fails
+        }
+        String msg = buffer.toString();
+        buffer.setLength(0);
+        if (buffer.capacity() > MAX_BUFFER_CAPACITY) {
+            buffer.trimToSize();
+        }
+        return msg;
+    }
+
     /**
      * Prints messages output by the chatbot in the correct format.
      *
@@ -32,6 +76,108 @@ public class Ui {
         return "NOOO please don't go!! Boo will miss you :( Come back soon!!\n";
     }
 
+    /**
+     * Prints the tasks that fall in a range of dates.
+     *
+     * @param tasks Tasks in the range, in order of their dates.
+     * @param range Description of the range, e.g. "due before 07/03/2025".
+     */
+    public String printTasksInRange(List<Task> tasks, String range) {
+        if (tasks.isEmpty()) {
+            return "Yay! Boo could not find any tasks " + range + ". Time to relax!\n";
+        }
+        StringBuilder msg = new StringBuilder("Here are the tasks " + range + ":\n");
+        int number = 1;
+        for (Task task : tasks) {
+            msg.append(number++).append(". ").append(task).append("\n");
+        }
+        return msg.toString();
+    }
+
+    /**
+     * Prints a reminder for a deadline or an event that is coming up.
+     *
+     * @param task Deadline or event that is coming up.
+     * @param timeLeft Time left until the deadline is due or the event starts.
+     */
+    public String printReminder(Task task, Duration timeLeft) {
+        String when = task instanceof Event ? "starts" : "is due";
+        return "Psst! Boo is here to remind you that this task " + when + " in " + describe(timeLeft) + ":\n"
+                + "  " + task + "\n";
+    }
+
+    private static String describe(Duration duration) {
+        long minutes = Math.max(1, (duration.toSeconds() + 59) / 60);
+        long hours = minutes / 60;
+        minutes %= 60;
+        String hourText = hours == 0 ? "" : hours + (hours == 1 ? " hour" : " hours");
+        String minuteText = minutes == 0 ? "" : minutes + (minutes == 1 ? " minute" : " minutes");
+        return hourText.isEmpty() || minuteText.isEmpty() ? hourText + minuteText : hourText + " " + minuteText;
+    }
+
+    /**
+     * Prints the corresponding message when a change to the task list is undone.
+     *
+     * @param change Type of change that was undone.
+     * @param task Task that the change affected, as it is now.
+     */
+    public String printUndoneChange(Storage.Change change, Task task) {
+        return "Whoosh! Boo has undone " + describe(change) + " this task:\n" + "  " + task + "\n";
+    }
+
+    /**
+     * Prints the corresponding message when a change to the task list that was undone is made again.
+     *
+     * @param change Type of change that was made again.
+     * @param task Task that the change affected, as it is now.
+     */
+    public String printRedoneChange(Storage.Change change, Task task) {
+        return "Okay! Boo has redone " + describe(change) + " this task:\n" + "  " + task + "\n";
+    }
+
+    private static String describe(Storage.Change change) {
+        switch (change) {
+        case ADD:
+            return "adding";
+        case DELETE:
+            return "deleting";
+        case MARK:
+            return "marking";
+        default:
+            return "unmarking";
+        }
+    }
+
+    /**
+     * Prints the corresponding message when done tasks are moved into the archive.
+     *
+     * @param count Number of tasks that were archived.
+     */
+    public String printArchivedTasks(int count) {
+        return "All tidy! Boo has archived " + count + (count == 1 ? " done task" : " done tasks") + ".\n"
+                + "You can still find archived tasks with 'find --archived <KEYWORD>'.\n";
+    }
+
+    /**
+     * Prints the timings that Boo has collected about itself.
+     *
+     * @param report Table of timings.
+     * @param isEnabled Whether timings are currently being collected.
+     */
+    public String printStats(String report, boolean isEnabled) {
+        return "Here is how long Boo has been taking (collection is " + (isEnabled ? "on" : "off") + "):\n"
+                + report;
+    }
+
+    /**
+     * Prints the corresponding message when the collection of timings is switched on or off, or reset.
+     *
+     * @param change What happened to the collection of timings, e.g. "switched on".
+     */
+    public String printStatsChanged(String change) {
+        return "Okay! Boo's timings have been " + change + ".\n";
+    }
+
     /**
      * Prints the corresponding message when task is successfully added to task list.
      *
@@ -83,22 +229,97 @@ public class Ui {
     /**
      * Prints the task history.
      *
-     * @param taskMap HashMap of the task history.
-     */
-    public String printTaskHistory(HashMap<Integer, Task> taskMap) {
-        if (taskMap.isEmpty()) {
-            return "Yay! You currently have no tasks :)\nBoo couldn't be prouder <3\n";
-        } else {
-            String msg = "These are the tasks you have:\n";
-            for (Map.Entry<Integer, Task> entry : taskMap.entrySet()) {
-                int taskId = entry.getKey();
-                Task task = entry.getValue();
-                msg += taskId + ". " + task.toString() + "\n";
-            }
-            msg += "\nThis might seem overwhelming, but don't stress!\n" +
-                    "Take it one step at a time and you'll get them all done in no time! "
-                    + "Boo is rooting for you!\n";
-            return msg;
+     * @param tasks Tasks in order of their task IDs.
+     */
+    public String printTaskHistory(Collection<Task> tasks) {
+        try {
+            return render(out -> writeTaskHistory(tasks.iterator(), tasks.size(), 0, out));
+        } catch (BooException e) {
+            throw new AssertionError(e); // writing the task history never fails
+        }
+    }
+
+    /**
+     * Writes the task history, or one page of it.
+     *
+     * @param tasks Iterator over the tasks, starting from the first task on the page.
+     * @param totalTasks Number of tasks in the task list.
+     * @param page Page to write, starting from 1, or 0 to write every task.
+     * @param out Sink that the task history is written to.
+     * @throws IOException If the sink could not be written to.
+     */
+    public void writeTaskHistory(Iterator<Task> tasks, int totalTasks, int page, Appendable out) throws IOException {
+        if (totalTasks == 0) {
+            out.append("Yay! You currently have no tasks :)\nBoo couldn't be prouder <3\n");
+            return;
+        }
+        out.append("These are the tasks you have");
+        writePageNumber(page, totalTasks, out);
+        out.append(":\n");
+        writeTasks(tasks, page, totalTasks, out);
+        out.append("\nThis might seem overwhelming, but don't stress!\n"
+                + "Take it one step at a time and you'll get them all done in no time! "
+                + "Boo is rooting for you!\n");
+    }
+
+    /**
+     * Writes the tasks that matched a search, or one page of them.
+     *
+     * @param matches Matching tasks, in order of their task IDs.
+     * @param page Page to write, starting from 1, or 0 to write every match.
+     * @param out Sink that the matches are written to.
+     * @throws IOException If the sink could not be written to.
+     */
+    public void writeMatchingTasks(List<Task> matches, int page, Appendable out) throws IOException {
+        writeMatches(matches, "list", page, out);
+    }
+
+    /**
+     * Writes the archived tasks that matched a search, or one page of them.
+     *
+     * @param matches Matching tasks, in the order they were archived.
+     * @param page Page to write, starting from 1, or 0 to write every match.
+     * @param out Sink that the matches are written to.
+     * @throws IOException If the sink could not be written to.
+     */
+    public void writeArchivedMatches(List<Task> matches, int page, Appendable out) throws IOException {
+        writeMatches(matches, "archive", page, out);
+    }
+
+    private void writeMatches(List<Task> matches, String place, int page, Appendable out) throws IOException {
+        if (matches.isEmpty()) {
+            out.append("Oh no! Boo could not find any tasks that contain that keyword :(\n");
+            return;
+        }
+        out.append("Here are the matching tasks in your ").append(place);
+        writePageNumber(page, matches.size(), out);
+        out.append(":\n");
+        int firstIndex = page == 0 ? 0 : (page - 1) * PAGE_SIZE;
+        writeTasks(matches.listIterator(firstIndex), page, matches.size(), out);
+    }
+
+    /**
+     * Returns the number of pages needed to show the given number of tasks.
+     *
+     * @param totalTasks Number of tasks to show.
+     * @return Number of pages, which is at least 1.
+     */
+    public static int getPageCount(int totalTasks) {
+        return Math.max(1, (totalTasks + PAGE_SIZE - 1) / PAGE_SIZE);
+    }
+
+    private void writePageNumber(int page, int totalTasks, Appendable out) throws IOException {
+        if (page > 0) {
+            out.append(" (page ").append(String.valueOf(page))
+                    .append(" of ").append(String.valueOf(getPageCount(totalTasks))).append(")");
+        }
+    }
+
+    private void writeTasks(Iterator<Task> tasks, int page, int totalTasks, Appendable out) throws IOException {
+        int number = page == 0 ? 1 : (page - 1) * PAGE_SIZE + 1;
+        int lastNumber = page == 0 ? totalTasks : Math.min(totalTasks, page * PAGE_SIZE);
+        while (number <= lastNumber && tasks.hasNext()) {
+            out.append(String.valueOf(number++)).append(". ").append(tasks.next().toString()).append('\n');
         }
     }
 }
@@ -4,7 +4,6 @@ import boo.misc.BooException;
 import boo.misc.Parser;
 
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
 
 
 /**
@@ -29,15 +28,36 @@ public class Deadline extends Task {
         assert this.deadlineDate != null : "Deadline date is not properly parsed";
     }
 
+    /**
+     * Constructs a Deadline task from a date that has already been parsed.
+     *
+     * @param description Description of the Deadline task.
+     * @param deadlineDate Date and timing that the task is due, i.e. the deadline of the task.
+     */
+    public Deadline(String description, LocalDateTime deadlineDate) {
+        super(description);
+        assert deadlineDate != null : "Deadline date should not be null";
+        this.deadlineDate = deadlineDate;
+    }
+
     /**
      * Returns a string representation of the task.
      *
      * @return A formatted string showing the task type, the task's completion status, and task description.
      */
     @Override
-    public String toString() {
-        return "[D]" + super.toString()
-                + " (by: " + deadlineDate.format(DateTimeFormatter.ofPattern("dd MMM yyyy h:mm a")) + ")";
+    protected String formatDisplayString() {
+        return "[D]" + super.formatDisplayString() + " (by: " + getFormattedDeadline() + ")";
+    }
+
+    /**
+     * Returns the description and deadline of the task as they are saved in the task file.
+     *
+     * @return A formatted string showing the description and the deadline.
+     */
+    @Override
+    protected String formatStorageDetails() {
+        return description + " (by: " + getFormattedDeadline() + ")";
     }
 
     /**
@@ -46,7 +66,7 @@ public class Deadline extends Task {
      * @return A formatted string showing the deadline, in the format dd MMM yyyy h:mm a.
      */
     public String getFormattedDeadline() {
-        return deadlineDate.format(DateTimeFormatter.ofPattern("dd MMM yyyy h:mm a"));
+        return deadlineDate.format(DISPLAY_DATE_FORMAT);
     }
 
     /**
@@ -4,7 +4,6 @@ import boo.misc.BooException;
 import boo.misc.Parser;
 
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
 
 
 /**
@@ -37,16 +36,44 @@ public class Event extends Task {
         }
     }
 
+    /**
+     * Constructs an Event task from dates that have already been parsed.
+     *
+     * @param description Description of the Event task.
+     * @param startTime Date and timing that the event begins.
+     * @param endTime Date and timing that the event ends.
+     * @throws BooException If the end of the event is earlier than the start of the event.
+     */
+    public Event(String description, LocalDateTime startTime, LocalDateTime endTime) throws BooException {
+        super(description);
+        assert startTime != null && endTime != null : "Event times should not be null";
+        if (endTime.isBefore(startTime)) {
+            throw new BooException("Oops! The 'to' time cannot be before the 'from' time.\n"
+                    + "Please enter the timing again!\n");
+        }
+        this.startTime = startTime;
+        this.endTime = endTime;
+    }
+
     /**
      * Returns a string representation of the task.
      *
      * @return A formatted string showing the task type, the task's completion status, and task description.
      */
     @Override
-    public String toString() {
-        return "[E]" + super.toString()
-                + " (from: " + startTime.format(DateTimeFormatter.ofPattern("dd MMM yyyy h:mm a"))
-                + " to: " + endTime.format(DateTimeFormatter.ofPattern("dd MMM yyyy h:mm a")) + ")";
+    protected String formatDisplayString() {
+        return "[E]" + super.formatDisplayString()
+                + " (from: " + getFormattedStartTime() + " to: " + getFormattedEndTime() + ")";
+    }
+
+    /**
+     * Returns the description and timing of the event as they are saved in the task file.
+     *
+     * @return A formatted string showing the description, start time and end time.
+     */
+    @Override
+    protected String formatStorageDetails() {
+        return description + " (from: " + getFormattedStartTime() + " to: " + getFormattedEndTime() + ")";
     }
 
     /**
@@ -55,7 +82,7 @@ public class Event extends Task {
      *  @return A formatted string showing the start time of the event, in the format dd MMM yyyy h:mm a.
      */
     public String getFormattedStartTime() {
-        return startTime.format(DateTimeFormatter.ofPattern("dd MMM yyyy h:mm a"));
+        return startTime.format(DISPLAY_DATE_FORMAT);
     }
 
     /**
@@ -64,7 +91,16 @@ public class Event extends Task {
      *  @return A formatted string showing the end time of the event, in the format dd MMM yyyy h:mm a.
      */
     public String getFormattedEndTime() {
-        return endTime.format(DateTimeFormatter.ofPattern("dd MMM yyyy h:mm a"));
+        return endTime.format(DISPLAY_DATE_FORMAT);
+    }
+
+    /**
+     * Returns the end time of the event as a LocalDateTime.
+     *
+     *  @return The end time of the event as a LocalDateTime.
+     */
+    public LocalDateTime getEndDate() {
+        return endTime;
     }
 
     /**
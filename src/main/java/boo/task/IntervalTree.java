@@ -0,0 +1,156 @@
+package boo.task;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Represents tasks that take up an interval of time, kept in order of their start dates and sequence numbers.
+ * A deadline is stored as an interval that starts and ends at its deadline.
+ *
+ * Like TaskTree, the tasks are stored in a treap whose nodes are never modified once created. Every node also
+ * knows the latest end date in its subtree, so subtrees that end before a query range can be skipped: finding
+ * the k tasks that overlap a range takes O(log n + k) time for typical task lists.
+ */
+final class IntervalTree {
+    static final IntervalTree EMPTY = new IntervalTree(null);
+
+    private final Node root;
+
+    private static final class Node {
+        private final Task task;
+        private final LocalDateTime start;
+        private final LocalDateTime end;
+        private final long sequence;
+        private final long priority;
+        private final Node left;
+        private final Node right;
+        private final LocalDateTime maxEnd;
+
+        private Node(Task task, LocalDateTime start, LocalDateTime end, long sequence, long priority,
+                Node left, Node right) {
+            this.task = task;
+            this.start = start;
+            this.end = end;
+            this.sequence = sequence;
+            this.priority = priority;
+            this.left = left;
+            this.right = right;
+            this.maxEnd = latest(end, latest(maxEndOf(left), maxEndOf(right)));
+        }
+
+        private Node withChildren(Node left, Node right) {
+            return new Node(task, start, end, sequence, priority, left, right);
+        }
+    }
+
+    private IntervalTree(Node root) {
+        this.root = root;
+    }
+
+    boolean isEmpty() {
+        return root == null;
+    }
+
+    /**
+     * Returns a tree that also contains the given task.
+     *
+     * @param task Task to insert.
+     * @param start Date that the task starts at.
+     * @param end Date that the task ends at, which is not before its start.
+     * @param sequence Sequence number of the task in the task list.
+     * @return Tree containing the task.
+     */
+    IntervalTree insert(Task task, LocalDateTime start, LocalDateTime end, long sequence) {
+        assert !end.isBefore(start) : "Interval should not end before it starts";
+        Node[] parts = split(root, start, sequence, false);
+        Node node = new Node(task, start, end, sequence, TaskTree.priorityOf(sequence), null, null);
+        return new IntervalTree(merge(merge(parts[0], node), parts[1]));
+    }
+
+    /**
+     * Returns a tree without the task with the given start date and sequence number.
+     *
+     * @param start Date that the task starts at.
+     * @param sequence Sequence number of the task in the task list.
+     * @return Tree without that task.
+     */
+    IntervalTree remove(LocalDateTime start, long sequence) {
+        Node[] parts = split(root, start, sequence, false);
+        Node[] rest = split(parts[1], start, sequence, true);
+        return new IntervalTree(merge(parts[0], rest[1]));
+    }
+
+    /**
+     * Returns the tasks that overlap a range of dates, in order of their start dates and sequence numbers.
+     *
+     * @param from Earliest date in the range.
+     * @param to Latest date in the range.
+     * @return Tasks that start no later than {@code to} and end no earlier than {@code from}.
+     */
+    List<Task> findOverlapping(LocalDateTime from, LocalDateTime to) {
+        List<Task> tasks = new ArrayList<>();
+        collectOverlapping(root, from, to, tasks);
+        return tasks;
+    }
+
+    private static void collectOverlapping(Node node, LocalDateTime from, LocalDateTime to, List<Task> tasks) {
+        if (node == null || node.maxEnd.isBefore(from)) {
+            return;
+        }
+        collectOverlapping(node.left, from, to, tasks);
+        if (node.start.isAfter(to)) {
+            // This task and every task to its right start too late
+            return;
+        }
+        if (!node.end.isBefore(from)) {
+            tasks.add(node.task);
+        }
+        collectOverlapping(node.right, from, to, tasks);
+    }
+
+    /**
+     * Splits a subtree into the tasks before the given start date and sequence number and the remaining tasks.
+     * If {@code isInclusive} is true, the task with that start date and sequence number goes into the first part.
+     */
+    private static Node[] split(Node node, LocalDateTime start, long sequence, boolean isInclusive) {
+        if (node == null) {
+            return new Node[] {null, null};
+        }
+        int comparison = TaskTree.compare(node.start, node.sequence, start, sequence);
+        boolean isInFirstPart = comparison < 0 || (isInclusive && comparison == 0);
+        if (isInFirstPart) {
+            Node[] parts = split(node.right, start, sequence, isInclusive);
+            return new Node[] {node.withChildren(node.left, parts[0]), parts[1]};
+        }
+        Node[] parts = split(node.left, start, sequence, isInclusive);
+        return new Node[] {parts[0], node.withChildren(parts[1], node.right)};
+    }
+
+    /**
+     * Joins two subtrees where every task in the first comes before every task in the second.
+     */
+    private static Node merge(Node first, Node second) {
+        if (first == null) {
+            return second;
+        }
+        if (second == null) {
+            return first;
+        }
+        if (first.priority > second.priority) {
+            return first.withChildren(first.left, merge(first.right, second));
+        }
+        return second.withChildren(merge(first, second.left), second.right);
+    }
+
+    private static LocalDateTime maxEndOf(Node node) {
+        return node == null ? null : node.maxEnd;
+    }
+
+    private static LocalDateTime latest(LocalDateTime date1, LocalDateTime date2) {
+        if (date1 == null) {
+            return date2;
+        }
+        return date2 == null || date1.isAfter(date2) ? date1 : date2;
+    }
+}
@@ -0,0 +1,179 @@
+package boo.task;
+
+import boo.misc.Ui;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Represents the reminders for deadlines and events that are not done yet.
+ * A deadline is reminded of an hour before it is due, and an event 15 minutes before it starts.
+ *
+ * Reminders are kept in order of the time they are due, so adding or cancelling one takes O(log n) time, and
+ * a background thread only sleeps until the earliest reminder instead of going through the whole task list.
+ */
+public class ReminderScheduler {
+    private static final Duration DEADLINE_NOTICE = Duration.ofHours(1);
+    private static final Duration EVENT_NOTICE = Duration.ofMinutes(15);
+    // The clock is checked at least this often, in case it was changed or the computer was asleep
+    private static final long MAX_SLEEP_MILLIS = 60_000;
+
+    private final Ui ui;
+    private final Clock clock;
+
+    // Reminders and the wakeup, guarded by this scheduler's lock
+    private final NavigableSet<Reminder> reminders = new TreeSet<>(Comparator.comparing(Reminder::time)
+            .thenComparingLong(Reminder::sequence));
+    private final Map<Long, Reminder> remindersBySequence = new HashMap<>();
+    private ScheduledExecutorService timer;
+    private ScheduledFuture<?> wakeup;
+    private LocalDateTime wakeupTime;
+    private Consumer<String> listener;
+
+    private record Reminder(LocalDateTime time, long sequence, Task task) {
+    }
+
+    /**
+     * Constructs a scheduler without any reminders, which sends nothing until it is started.
+     *
+     * @param ui Interface that words the reminders.
+     */
+    public ReminderScheduler(Ui ui) {
+        this(ui, Clock.systemDefaultZone());
+    }
+
+    ReminderScheduler(Ui ui, Clock clock) {
+        this.ui = ui;
+        this.clock = clock;
+    }
+
+    /**
+     * Starts sending reminders to a listener once they are due.
+     * Reminders are sent from a background thread.
+     *
+     * @param listener Listener that receives the wording of each reminder.
+     */
+    public synchronized void start(Consumer<String> listener) {
+        this.listener = listener;
+        if (timer == null) {
+            timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "boo-reminders");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        scheduleWakeup();
+    }
+
+    /**
+     * Schedules a reminder for a task, unless it is done, has no date or has already started.
+     *
+     * @param task Task to be reminded of.
+     * @param sequence Sequence number of the task in the task list.
+     */
+    synchronized void schedule(Task task, long sequence) {
+        cancel(sequence);
+        LocalDateTime startDate = task.getStartDate();
+        if (task.isDone() || startDate == null || !startDate.isAfter(LocalDateTime.now(clock))) {
+            return;
+        }
+        Duration notice = task instanceof Event ? EVENT_NOTICE : DEADLINE_NOTICE;
+        Reminder reminder = new Reminder(startDate.minus(notice), sequence, task);
+        reminders.add(reminder);
+        remindersBySequence.put(sequence, reminder);
+        if (wakeupTime == null || reminder.time().isBefore(wakeupTime)) {
+            scheduleWakeup();
+        }
+    }
+
+    /**
+     * Cancels the reminder for a task, if there is one.
+     * The wakeup for it is left alone, as waking up without any reminders to send is cheap.
+     *
+     * @param sequence Sequence number of the task in the task list.
+     */
+    synchronized void cancel(long sequence) {
+        Reminder reminder = remindersBySequence.remove(sequence);
+        if (reminder != null) {
+            reminders.remove(reminder);
+        }
+    }
+
+    /**
+     * Cancels every reminder.
+     */
+    synchronized void clear() {
+        reminders.clear();
+        remindersBySequence.clear();
+    }
+
+    /**
+     * Sends the reminders that are due to the listener, if the scheduler has been started.
+     *
+     * @return Wording of the reminders that were due.
+     */
+    List<String> sendDueReminders() {
+        List<String> messages = new ArrayList<>();
+        Consumer<String> currentListener;
+        synchronized (this) {
+            LocalDateTime now = LocalDateTime.now(clock);
+            while (!reminders.isEmpty() && !reminders.first().time().isAfter(now)) {
+                Reminder reminder = reminders.pollFirst();
+                remindersBySequence.remove(reminder.sequence());
+                Duration timeLeft = Duration.between(now, reminder.task().getStartDate());
+                messages.add(ui.printReminder(reminder.task(), timeLeft));
+            }
+            currentListener = listener;
+        }
+        if (currentListener != null) {
+            messages.forEach(currentListener);
+        }
+        return messages;
+    }
+
+    private void wakeUp() {
+        synchronized (this) {
+            wakeupTime = null;
+        }
+        sendDueReminders();
+        synchronized (this) {
+            if (wakeupTime == null) {
+                scheduleWakeup();
+            }
+        }
+    }
+
+    /**
+     * Schedules the background thread to wake up when the earliest reminder is due.
+     * Must be called while holding this scheduler's lock.
+     */
+    private void scheduleWakeup() {
+        if (timer == null) {
+            return;
+        }
+        if (wakeup != null) {
+            wakeup.cancel(false);
+        }
+        LocalDateTime now = LocalDateTime.now(clock);
+        long delayMillis = MAX_SLEEP_MILLIS;
+        if (!reminders.isEmpty()) {
+            long millisUntilDue = Duration.between(now, reminders.first().time()).toMillis();
+            delayMillis = Math.max(0, Math.min(delayMillis, millisUntilDue));
+        }
+        wakeupTime = now.plus(Duration.ofMillis(delayMillis));
+        wakeup = timer.schedule(this::wakeUp, delayMillis, TimeUnit.MILLISECONDS);
+    }
+}
@@ -0,0 +1,179 @@
+package boo.task;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Represents an inverted index from the trigrams in task descriptions to the tasks that contain them.
+ * A keyword can only appear in a description that contains every trigram of the keyword, so the index narrows
+ * a search down to a few candidates, which are then checked for the whole keyword.
+ * Keywords shorter than a trigram fall back to checking every task.
+ */
+final class SearchIndex {
+    private static final int GRAM_LENGTH = 3;
+    private static final String AND = " AND ";
+    private static final String OR = " OR ";
+
+    // Maps each trigram to the tasks that contain it and their sequence numbers
+    private final Map<String, Map<Task, Long>> postings = new ConcurrentHashMap<>();
+
+    /**
+     * Adds a task to the index.
+     *
+     * @param task Task to add.
+     * @param sequence Sequence number of the task in the task list.
+     */
+    void add(Task task, long sequence) {
+        for (String gram : gramsOf(normalize(task.getDescription()))) {
+            postings.computeIfAbsent(gram, key -> new ConcurrentHashMap<>()).put(task, sequence);
+        }
+    }
+
+    /**
+     * Removes a task from the index.
+     *
+     * @param task Task to remove.
+     */
+    void remove(Task task) {
+        for (String gram : gramsOf(normalize(task.getDescription()))) {
+            Map<Task, Long> posting = postings.get(gram);
+            if (posting != null) {
+                posting.remove(task);
+                if (posting.isEmpty()) {
+                    postings.remove(gram, posting);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the tasks in a snapshot of the task list whose descriptions match a query, in the order of the
+     * task list.
+     * A query is made up of keywords joined by AND and OR, where AND binds more tightly than OR.
+     * A task matches a keyword if its description contains the keyword, ignoring case.
+     *
+     * The index may be updated by one writer while it is searched. Candidates are checked against the snapshot,
+     * so tasks added after the snapshot are never returned, although a task that is removed or replaced while
+     * the search runs may be left out.
+     *
+     * @param query Query to match.
+     * @param tasks Snapshot of the task list.
+     * @return Matching tasks.
+     */
+    List<Task> search(String query, TaskTree tasks) {
+        Map<Task, Long> matches = new IdentityHashMap<>();
+        for (String alternative : query.split(OR)) {
+            matches.putAll(searchAll(alternative.split(AND), tasks));
+        }
+        List<Map.Entry<Task, Long>> sortedMatches = new ArrayList<>();
+        for (Map.Entry<Task, Long> match : matches.entrySet()) {
+            if (tasks.contains(match.getKey(), match.getValue())) {
+                sortedMatches.add(match);
+            }
+        }
+        sortedMatches.sort((match1, match2) -> TaskTree.compare(match1.getKey().getStartDate(), match1.getValue(),
+                match2.getKey().getStartDate(), match2.getValue()));
+        List<Task> sortedTasks = new ArrayList<>(sortedMatches.size());
+        for (Map.Entry<Task, Long> match : sortedMatches) {
+            sortedTasks.add(match.getKey());
+        }
+        return sortedTasks;
+    }
+
+    /**
+     * Returns whether a task's description matches a query, in the same way as a search through the index.
+     * Used for tasks that are not in the index.
+     *
+     * @param query Query to match.
+     * @param task Task to check.
+     * @return Whether the task matches.
+     */
+    static boolean matches(String query, Task task) {
+        String description = normalize(task.getDescription());
+        for (String alternative : query.split(OR)) {
+            boolean hasKeyword = false;
+            boolean isMatch = true;
+            for (String keyword : alternative.split(AND)) {
+                String normalizedKeyword = normalize(keyword);
+                if (!normalizedKeyword.isEmpty()) {
+                    hasKeyword = true;
+                    isMatch = isMatch && description.contains(normalizedKeyword);
+                }
+            }
+            if (hasKeyword && isMatch) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private Map<Task, Long> searchAll(String[] keywords, TaskTree tasks) {
+        Map<Task, Long> matches = null;
+        for (String keyword : keywords) {
+            String normalizedKeyword = normalize(keyword);
+            if (normalizedKeyword.isEmpty()) {
+                continue;
+            }
+            Map<Task, Long> candidates = matches != null ? matches : findCandidates(normalizedKeyword, tasks);
+            Map<Task, Long> keywordMatches = new IdentityHashMap<>();
+            candidates.forEach((task, sequence) -> {
+                if (normalize(task.getDescription()).contains(normalizedKeyword)) {
+                    keywordMatches.put(task, sequence);
+                }
+            });
+            matches = keywordMatches;
+        }
+        return matches == null ? Map.of() : matches;
+    }
+
+    /**
+     * Returns the tasks that contain every trigram of the keyword, going through the rarest trigram's tasks.
+     */
+    private Map<Task, Long> findCandidates(String keyword, TaskTree tasks) {
+        Map<Task, Long> candidates = new IdentityHashMap<>();
+        if (keyword.length() < GRAM_LENGTH) {
+            tasks.forEach(candidates::put);
+            return candidates;
+        }
+        List<Map<Task, Long>> keywordPostings = new ArrayList<>();
+        Map<Task, Long> rarestPosting = null;
+        for (String gram : gramsOf(keyword)) {
+            Map<Task, Long> posting = postings.get(gram);
+            if (posting == null) {
+                return candidates;
+            }
+            keywordPostings.add(posting);
+            if (rarestPosting == null || posting.size() < rarestPosting.size()) {
+                rarestPosting = posting;
+            }
+        }
+
+        for (Map.Entry<Task, Long> entry : rarestPosting.entrySet()) {
+            boolean isInAllPostings = true;
+            for (int i = 0; i < keywordPostings.size() && isInAllPostings; i++) {
+                isInAllPostings = keywordPostings.get(i).containsKey(entry.getKey());
+            }
+            if (isInAllPostings) {
+                candidates.put(entry.getKey(), entry.getValue());
+            }
+        }
+        return candidates;
+    }
+
+    private static Set<String> gramsOf(String text) {
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i + GRAM_LENGTH <= text.length(); i++) {
+            grams.add(text.substring(i, i + GRAM_LENGTH));
+        }
+        return grams;
+    }
+
+    private static String normalize(String text) {
+        return text.trim().toLowerCase();
+    }
+}
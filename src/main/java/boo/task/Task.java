@@ -1,13 +1,19 @@
 package boo.task;
 
 import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
 
 /**
  * Represents a task with a description and completion status.
+ * The display and storage strings of a task are formatted once and reused until the task changes.
  */
-public class Task {
+public class Task implements Cloneable {
+    protected static final DateTimeFormatter DISPLAY_DATE_FORMAT = DateTimeFormatter.ofPattern("dd MMM yyyy h:mm a");
+
     protected String description;
     protected boolean isDone;
+    private String displayString;
+    private String storageString;
 
     /**
      * Constructs a Task object.
@@ -33,12 +39,53 @@ public class Task {
         return (this.isDone ? "X" : " ");
     }
 
-    public void setAsDone() {
-        this.isDone = true;
+    /**
+     * Marks the task as done.
+     * Tasks are shared with readers once they are in a task list, so only tasks that are not in one yet may be
+     * changed. Everywhere else, use {@link #withDone(boolean)}.
+     */
+    void setAsDone() {
+        setDone(true);
     }
 
-    public void setAsNotDone() {
-        this.isDone = false;
+    /**
+     * Marks the task as not done.
+     * Only tasks that are not in a task list yet may be changed, as with {@link #setAsDone()}.
+     */
+    void setAsNotDone() {
+        setDone(false);
+    }
+
+    private void setDone(boolean isDone) {
+        if (this.isDone != isDone) {
+            this.isDone = isDone;
+            invalidateStrings();
+        }
+    }
+
+    /**
+     * Returns a copy of the task with the given completion status, leaving this task unchanged.
+     *
+     * @param isDone Whether the copy is marked as done.
+     * @return Copy of the task.
+     */
+    public Task withDone(boolean isDone) {
+        try {
+            Task copy = (Task) clone();
+            copy.setDone(isDone);
+            return copy;
+        } catch (CloneNotSupportedException e) {
+            throw new AssertionError(e); // tasks are cloneable
+        }
+    }
+
+    /**
+     * Discards the cached display and storage strings.
+     * Must be called whenever a field that appears in them changes.
+     */
+    protected void invalidateStrings() {
+        displayString = null;
+        storageString = null;
     }
 
     public String getDescription() {
@@ -54,10 +101,44 @@ public class Task {
      *
      * @return A formatted string showing the task's completion status and description.
      */
+    @Override
     public String toString() {
+        if (displayString == null) {
+            displayString = formatDisplayString();
+        }
+        return displayString;
+    }
+
+    /**
+     * Returns the representation of the task that is saved in the task file, without its task ID.
+     *
+     * @return A formatted string showing the task's type, completion status and description.
+     */
+    public String toStorageString() {
+        if (storageString == null) {
+            storageString = getClass().getSimpleName() + " task || isDone: " + isDone + " || " + formatStorageDetails();
+        }
+        return storageString;
+    }
+
+    /**
+     * Formats the string representation of the task.
+     *
+     * @return A formatted string showing the task's completion status and description.
+     */
+    protected String formatDisplayString() {
         return "[" + getStatusIcon() + "] " + description;
     }
 
+    /**
+     * Formats the details of the task that are saved after its type and completion status.
+     *
+     * @return The description of the task.
+     */
+    protected String formatStorageDetails() {
+        return description;
+    }
+
     /**
      * Returns the start date of the task as a LocalDateTime.
      *
@@ -1,27 +1,117 @@
 package boo.task;
 
 import boo.misc.BooException;
+import boo.misc.Histogram;
+import boo.misc.Metrics;
+import boo.misc.Parser;
 import boo.misc.Ui;
 import boo.misc.Storage;
 
-import java.util.HashMap;
+import java.io.IOException;
+import java.lang.ref.SoftReference;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.AbstractCollection;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiPredicate;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
 
 
 /**
  * Represents a list of tasks that can be manipulated.
  * Tasks can be of any type.
+ *
+ * The task list can be used from several threads. Changes are made one at a time under a lock, and each change
+ * publishes a new snapshot of the tasks and their indexes, so listing and finding tasks never take the lock and
+ * never wait for a change to be saved. Tasks are never modified once they are in the list: marking a task
+ * replaces it with a marked copy.
+ *
+ * The storage may leave some groups of tasks unloaded until they are needed. Each snapshot lists those groups
+ * and how many tasks they hold, so that task IDs count their tasks too. Listing, finding and date queries read
+ * the unloaded groups that they need without the lock and without loading them, and each group is indexed
+ * once and kept for as long as memory allows. A change to a task in an unloaded group, or a new task that
+ * belongs in one, reads the group first and then loads it under the lock. Loading tasks forgets the changes
+ * that could be undone, since those changes were made without the loaded tasks.
+ *
+ * Done tasks can be moved into the storage's archive, so that they no longer take up memory or time. Done
+ * deadlines and events whose dates are long past can also be archived before any command is run.
  */
 public class TaskList {
-    private HashMap<Integer, Task> tasksMap;
+    private static final Histogram UPDATE_TIME = Metrics.histogram("task-list.update");
+    private static final Histogram FIND_TIME = Metrics.histogram("task-list.find");
+    // Number of changes that can be undone, where a negative setting counts as none
+    private static final int HISTORY_DEPTH = Math.max(0, Integer.getInteger("boo.undoDepth", 100));
+
+    // The tasks and their indexes as of the latest change
+    private volatile Snapshot snapshot;
     private final Ui ui;
-    private int taskId;
     private final Storage storage;
+    private final ReminderScheduler reminders;
+    // Held for the whole of a change, including saving it, and guards the fields below
+    private final Object writeLock = new Object();
+    private long nextSequence;
+    private boolean isInBatch;
+    // Changes that can be undone and redone, oldest first
+    private final Deque<Revision> undoHistory = new ArrayDeque<>();
+    private final Deque<Revision> redoHistory = new ArrayDeque<>();
+    // Unloaded groups of tasks that have been read and indexed, by their dates. They are only softly reachable,
+    // so that the groups that a search went through are read again rather than run out of memory
+    private final Map<LocalDateTime, SoftReference<Snapshot>> unloadedGroupCache = new ConcurrentHashMap<>();
+
+    /**
+     * Represents the tasks in order of their dates, and the indexes over them, at one point in time, together
+     * with the groups of tasks that the storage had not loaded yet and the number of tasks in them.
+     * The search index is shared by the snapshots that follow one another, and a search checks its results
+     * against the snapshot's tasks.
+     */
+    private record Snapshot(TaskTree tasks, SearchIndex searchIndex, IntervalTree deadlines, IntervalTree events,
+            NavigableMap<LocalDateTime, Storage.TaskGroup> unloadedGroups, int unloadedTaskCount) {
+        Snapshot withTasks(TaskTree tasks, IntervalTree deadlines, IntervalTree events) {
+            return new Snapshot(tasks, searchIndex, deadlines, events, unloadedGroups, unloadedTaskCount);
+        }
+
+        int taskCount() {
+            return tasks.size() + unloadedTaskCount;
+        }
+    }
 
     /**
-     * Constructs a list of tasks, in the form of a Hashmap.
-     * Task ID starts at 1 and increases as tasks get added.
+     * Represents the position that a task ID maps to in a snapshot, which is in an unloaded group if the group's
+     * date is given and in the loaded tasks otherwise.
+     */
+    private record Position(LocalDateTime group, int index) {
+    }
+
+    /**
+     * Represents a change to the task at a position in the loaded tasks, made while holding the write lock.
+     */
+    private interface TaskChange {
+        String apply(int index) throws BooException;
+    }
+
+    /**
+     * Represents a change that can be undone, as the snapshots before and after it.
+     * Snapshots share all but O(log n) of their nodes with each other, so keeping them is cheap.
+     * The task that the change added and the task that it removed, if any, have the same sequence number.
+     */
+    private record Revision(Storage.Change change, Snapshot before, Snapshot after, Task addedTask, Task removedTask,
+            long sequence) {
+    }
+
+    /**
+     * Constructs a list of tasks, kept in order of their dates.
+     * Task ID starts at 1 and is the position of the task in that order.
      *
      * @param storage Storage to store and load the task list in a hard disk.
      * @param ui Interface that interacts with the user.
@@ -30,28 +120,364 @@ public class TaskList {
         assert storage != null : "Storage must not be null!";
         assert ui != null : "Ui must not be null!";
 
-        this.tasksMap = new HashMap<Integer, Task>();
         this.storage = storage;
-        this.tasksMap = storage.loadTasksFromFile();
         this.ui = ui;
-        if (!tasksMap.isEmpty()) {
-            this.taskId = tasksMap.size() + 1;
-        } else {
-            this.taskId = 1;
+        reminders = new ReminderScheduler(ui);
+        loadTasks();
+    }
+
+    private void loadTasks() throws BooException {
+        synchronized (writeLock) {
+            snapshot = new Snapshot(TaskTree.EMPTY, new SearchIndex(), IntervalTree.EMPTY, IntervalTree.EMPTY,
+                    Collections.emptyNavigableMap(), 0);
+            nextSequence = 0;
+            undoHistory.clear();
+            redoHistory.clear();
+            reminders.clear();
+            unloadedGroupCache.clear();
+            List<Task> loadedTasks = storage.loadTasksFromFile();
+            NavigableMap<LocalDateTime, Storage.TaskGroup> unloadedGroups =
+                    Collections.unmodifiableNavigableMap(new TreeMap<>(storage.getUnloadedTaskGroups()));
+            snapshot = new Snapshot(TaskTree.EMPTY, snapshot.searchIndex(), IntervalTree.EMPTY, IntervalTree.EMPTY,
+                    unloadedGroups, countTasks(unloadedGroups));
+            insertLoadedTasks(loadedTasks);
+        }
+    }
+
+    private static int countTasks(Map<LocalDateTime, Storage.TaskGroup> groups) {
+        int count = 0;
+        for (Storage.TaskGroup group : groups.values()) {
+            count += group.taskCount();
+        }
+        return count;
+    }
+
+    /**
+     * Adds the tasks that were loaded from the storage.
+     * Must be called while holding the write lock.
+     */
+    private void insertLoadedTasks(List<Task> loadedTasks) {
+        for (Task task : loadedTasks) {
+            insertTask(task);
+        }
+    }
+
+    /**
+     * Archives the loaded done deadlines and events whose dates passed more than the given number of days ago.
+     * This only happens when it is called, before any command is run, so that task IDs never shift after the
+     * user has seen them.
+     *
+     * @param days Number of days after its date that a done deadline or event is archived.
+     * @return Number of tasks that were archived.
+     * @throws BooException If the tasks could not be archived.
+     */
+    public int archiveStaleTasks(int days) throws BooException {
+        assert days >= 0 : "Number of days must not be negative";
+        synchronized (writeLock) {
+            LocalDateTime archiveBefore = LocalDateTime.now().minusDays(days);
+            return archiveTasksWhere(task -> isDoneBefore(task, archiveBefore));
         }
-        assert taskId > 0 : "Task ID must always be positive";
+    }
+
+    private static boolean isDoneBefore(Task task, LocalDateTime date) {
+        LocalDateTime lastDate = task instanceof Event event ? event.getEndDate() : task.getStartDate();
+        return task.isDone() && lastDate != null && lastDate.isBefore(date);
+    }
+
+    /**
+     * Returns the position that a task ID maps to in a snapshot.
+     * The number of tasks in each unloaded group is enough to tell which group holds the ID, so no group is read.
+     */
+    private static Position locate(Snapshot current, int taskId) {
+        int unloadedTasksBefore = 0;
+        for (Map.Entry<LocalDateTime, Storage.TaskGroup> group : current.unloadedGroups().entrySet()) {
+            int groupFirstId = current.tasks().countBefore(group.getKey()) + unloadedTasksBefore + 1;
+            if (groupFirstId > taskId) {
+                break;
+            }
+            int taskCount = group.getValue().taskCount();
+            if (taskId < groupFirstId + taskCount) {
+                return new Position(group.getKey(), taskId - groupFirstId);
+            }
+            unloadedTasksBefore += taskCount;
+        }
+        return new Position(null, taskId - unloadedTasksBefore - 1);
     }
 
     /**
-     * Saves the task list into a designated hard disk.
+     * Returns the date of the unloaded group in a snapshot that a task would be saved with, or null if the task
+     * would be saved with the loaded tasks.
      */
-    private void save() throws BooException {
-        storage.saveTasksToFile(tasksMap);
+    private static LocalDateTime findGroupFor(Snapshot current, Task task) {
+        LocalDateTime startDate = task.getStartDate();
+        Map.Entry<LocalDateTime, Storage.TaskGroup> group = startDate == null
+                ? current.unloadedGroups().firstEntry()
+                : current.unloadedGroups().floorEntry(startDate);
+        if (group == null) {
+            return null;
+        }
+        LocalDateTime startsBefore = group.getValue().startsBefore();
+        boolean isInGroup = startDate == null
+                ? startsBefore == null
+                : startsBefore != null && startDate.isBefore(startsBefore);
+        return isInGroup ? group.getKey() : null;
     }
 
-    public HashMap<Integer, Task> getTaskMap() {
-        sortTasks();
-        return this.tasksMap;
+    /**
+     * Returns the tasks of an unloaded group, indexed in the same way as the loaded tasks.
+     * Each group is read from the storage once and then kept until it is loaded or memory runs short.
+     */
+    private Snapshot readUnloadedGroup(LocalDateTime date) throws BooException {
+        SoftReference<Snapshot> cachedGroup = unloadedGroupCache.get(date);
+        Snapshot group = cachedGroup == null ? null : cachedGroup.get();
+        if (group != null) {
+            return group;
+        }
+        group = indexTasks(storage.readTaskGroup(date));
+        if (snapshot.unloadedGroups().containsKey(date)) {
+            unloadedGroupCache.put(date, new SoftReference<>(group));
+        }
+        return group;
+    }
+
+    /**
+     * Returns a snapshot of the given tasks and the indexes over them, with sequence numbers in the same order.
+     */
+    private static Snapshot indexTasks(List<Task> tasks) {
+        Snapshot indexedTasks = new Snapshot(TaskTree.EMPTY, new SearchIndex(), IntervalTree.EMPTY,
+                IntervalTree.EMPTY, Collections.emptyNavigableMap(), 0);
+        for (int i = 0; i < tasks.size(); i++) {
+            indexedTasks = withTask(indexedTasks, tasks.get(i), i);
+        }
+        return indexedTasks;
+    }
+
+    /**
+     * Adds an unloaded group to the loaded tasks, and publishes the snapshot that contains its tasks and no
+     * longer lists the group. The group is read before the write lock is taken, so that other changes only wait
+     * while its tasks are added. Changes made before then can no longer be undone, since undoing them would leave
+     * out the tasks that were loaded.
+     */
+    private void loadGroup(LocalDateTime date) throws BooException {
+        Snapshot group = readUnloadedGroup(date);
+        synchronized (writeLock) {
+            Snapshot current = snapshot;
+            if (!current.unloadedGroups().containsKey(date)) {
+                return;
+            }
+            List<Task> groupTasks = new ArrayList<>(group.tasks().size());
+            for (Task task : group.tasks()) {
+                groupTasks.add(task);
+            }
+            storage.addLoadedTaskGroup(date, groupTasks);
+            long startTime = Metrics.startTimer();
+            Snapshot loaded = current;
+            for (Task task : groupTasks) {
+                long sequence = nextSequence++;
+                loaded = withTask(loaded, task, sequence);
+                reminders.schedule(task, sequence);
+            }
+            NavigableMap<LocalDateTime, Storage.TaskGroup> unloadedGroups = new TreeMap<>(current.unloadedGroups());
+            unloadedGroups.remove(date);
+            snapshot = new Snapshot(loaded.tasks(), loaded.searchIndex(), loaded.deadlines(), loaded.events(),
+                    Collections.unmodifiableNavigableMap(unloadedGroups), countTasks(unloadedGroups));
+            unloadedGroupCache.remove(date);
+            undoHistory.clear();
+            redoHistory.clear();
+            Metrics.stopTimer(UPDATE_TIME, startTime);
+        }
+    }
+
+    /**
+     * Loads every group of tasks that the storage has not loaded yet, so that the snapshot's tasks cover the
+     * whole task list.
+     */
+    private void loadAllTasks() throws BooException {
+        for (LocalDateTime date : snapshot.unloadedGroups().keySet()) {
+            loadGroup(date);
+        }
+    }
+
+    /**
+     * Makes a change to the task with the given ID while holding the write lock.
+     * If the task is in an unloaded group, the group is loaded first, and the ID is mapped again under the lock
+     * in case another change loaded a group in the meantime.
+     */
+    private String changeTask(int taskId, TaskChange change) throws BooException {
+        while (true) {
+            Position position = locate(snapshot, taskId);
+            if (position.group() != null) {
+                loadGroup(position.group());
+                continue;
+            }
+            synchronized (writeLock) {
+                position = locate(snapshot, taskId);
+                if (position.group() == null) {
+                    return change.apply(position.index());
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the tasks with IDs from firstId to lastId in a snapshot, including those in unloaded groups.
+     * Only the groups that hold some of those IDs are read.
+     */
+    private List<Task> getTasksWithIds(Snapshot current, int firstId, int lastId) throws BooException {
+        List<Task> tasks = new ArrayList<>(Math.max(0, lastId - firstId + 1));
+        TaskTree loadedTasks = current.tasks();
+        int nextId = 1;
+        int nextIndex = 0;
+        for (Map.Entry<LocalDateTime, Storage.TaskGroup> group : current.unloadedGroups().entrySet()) {
+            if (nextId > lastId) {
+                return tasks;
+            }
+            int groupIndex = loadedTasks.countBefore(group.getKey());
+            addTasksWithIds(loadedTasks, nextIndex, groupIndex, nextId, firstId, lastId, tasks);
+            nextId += groupIndex - nextIndex;
+            nextIndex = groupIndex;
+            int taskCount = group.getValue().taskCount();
+            if (nextId <= lastId && nextId + taskCount > firstId) {
+                TaskTree groupTasks = readUnloadedGroup(group.getKey()).tasks();
+                addTasksWithIds(groupTasks, 0, Math.min(taskCount, groupTasks.size()), nextId, firstId, lastId,
+                        tasks);
+            }
+            nextId += taskCount;
+        }
+        addTasksWithIds(loadedTasks, nextIndex, loadedTasks.size(), nextId, firstId, lastId, tasks);
+        return tasks;
+    }
+
+    /**
+     * Adds the tasks at positions fromIndex to toIndex, exclusive, whose IDs fall from firstId to lastId.
+     * The task at fromIndex has the ID fromId.
+     */
+    private static void addTasksWithIds(TaskTree source, int fromIndex, int toIndex, int fromId, int firstId,
+            int lastId, List<Task> tasks) {
+        int start = fromIndex + Math.max(0, firstId - fromId);
+        int end = Math.min(toIndex, fromIndex + lastId - fromId + 1);
+        if (start >= end) {
+            return;
+        }
+        Iterator<Task> iterator = source.iterator(start);
+        for (int i = start; i < end; i++) {
+            tasks.add(iterator.next());
+        }
+    }
+
+    /**
+     * Adds the matches in the unloaded groups of a snapshot to the matches among its loaded tasks, in order of
+     * their task IDs. Only the groups that may hold a match are read, and they stay unloaded.
+     *
+     * @param mayMatch Whether a group, given its date and summary, may hold a match.
+     * @param findMatches Finds the matches in a group's tasks, in order of their dates.
+     */
+    private List<Task> addUnloadedMatches(Snapshot current, List<Task> loadedMatches,
+            BiPredicate<LocalDateTime, Storage.TaskGroup> mayMatch, Function<Snapshot, List<Task>> findMatches)
+            throws BooException {
+        if (current.unloadedGroups().isEmpty()) {
+            return loadedMatches;
+        }
+        List<Task> matches = new ArrayList<>(loadedMatches.size());
+        int i = 0;
+        for (Map.Entry<LocalDateTime, Storage.TaskGroup> group : current.unloadedGroups().entrySet()) {
+            if (!mayMatch.test(group.getKey(), group.getValue())) {
+                continue;
+            }
+            // Loaded tasks never start within an unloaded group, so the matches can be merged by their dates
+            while (i < loadedMatches.size() && startsBefore(loadedMatches.get(i), group.getKey())) {
+                matches.add(loadedMatches.get(i++));
+            }
+            matches.addAll(findMatches.apply(readUnloadedGroup(group.getKey())));
+        }
+        matches.addAll(loadedMatches.subList(i, loadedMatches.size()));
+        return matches;
+    }
+
+    private static boolean startsBefore(Task task, LocalDateTime date) {
+        return task.getStartDate() == null || task.getStartDate().isBefore(date);
+    }
+
+    /**
+     * Starts sending reminders for the deadlines and events that are coming up and not done yet.
+     *
+     * @param listener Listener that receives the wording of each reminder, from a background thread.
+     */
+    public void startReminders(Consumer<String> listener) {
+        reminders.start(listener);
+    }
+
+    /**
+     * Starts a batch of changes.
+     * Changes made during a batch are only kept in memory until the batch is committed or rolled back.
+     */
+    public void beginBatch() {
+        synchronized (writeLock) {
+            assert !isInBatch : "A batch has already been started";
+            isInBatch = true;
+        }
+    }
+
+    /**
+     * Saves every change made during the batch into the hard disk at once.
+     *
+     * @throws BooException If the tasks could not be saved.
+     */
+    public void commitBatch() throws BooException {
+        synchronized (writeLock) {
+            assert isInBatch : "No batch has been started";
+            isInBatch = false;
+            storage.saveTasksToFile(getTasks());
+        }
+    }
+
+    /**
+     * Discards every change made during the batch by loading the tasks that were last saved.
+     *
+     * @throws BooException If the saved tasks could not be loaded.
+     */
+    public void rollbackBatch() throws BooException {
+        synchronized (writeLock) {
+            assert isInBatch : "No batch has been started";
+            isInBatch = false;
+            loadTasks();
+        }
+    }
+
+    /**
+     * Saves a change to the task list into a designated hard disk, unless a batch of changes is in progress.
+     * Must be called while holding the write lock, so that changes are saved in the order they were made.
+     *
+     * @param change Type of change made to the task list.
+     * @param taskId ID of the affected task, before the change was made.
+     * @param task Task that was affected.
+     */
+    private void save(Storage.Change change, int taskId, Task task) throws BooException {
+        if (isInBatch) {
+            return;
+        }
+        storage.saveChange(change, taskId, task, getTasks());
+    }
+
+    /**
+     * Returns the tasks in order of their dates.
+     * The position of a task in the collection, starting from 1, is its task ID.
+     *
+     * @return Read-only view of the tasks.
+     */
+    public Collection<Task> getTasks() {
+        TaskTree currentTasks = snapshot.tasks();
+        return new AbstractCollection<>() {
+            @Override
+            public Iterator<Task> iterator() {
+                return currentTasks.iterator();
+            }
+
+            @Override
+            public int size() {
+                return currentTasks.size();
+            }
+        };
     }
 
     /**
@@ -62,10 +488,54 @@ public class TaskList {
      */
     public String addTask(Task task) throws BooException {
         assert task != null : "Task must not be null";
-        tasksMap.put(taskId, task);
-        this.taskId++;
-        updateTasks();
-        return ui.printAddedTask(taskId, task);
+        while (true) {
+            // The task is saved together with the other tasks of its group, so that group is loaded first
+            LocalDateTime group = findGroupFor(snapshot, task);
+            if (group != null) {
+                loadGroup(group);
+                continue;
+            }
+            synchronized (writeLock) {
+                if (findGroupFor(snapshot, task) != null) {
+                    continue;
+                }
+                Snapshot before = snapshot;
+                long sequence = insertTask(task);
+                remember(new Revision(Storage.Change.ADD, before, snapshot, task, null, sequence));
+                save(Storage.Change.ADD, snapshot.tasks().size(), task);
+                return ui.printAddedTask(snapshot.taskCount() + 1, task);
+            }
+        }
+    }
+
+    /**
+     * Adds a task and publishes the snapshot that contains it.
+     * Must be called while holding the write lock.
+     *
+     * @return Sequence number of the task.
+     */
+    private long insertTask(Task task) {
+        long startTime = Metrics.startTimer();
+        long sequence = nextSequence++;
+        snapshot = withTask(snapshot, task, sequence);
+        reminders.schedule(task, sequence);
+        Metrics.stopTimer(UPDATE_TIME, startTime);
+        return sequence;
+    }
+
+    /**
+     * Returns a snapshot that also contains a task, after adding the task to the shared search index.
+     */
+    private static Snapshot withTask(Snapshot current, Task task, long sequence) {
+        current.searchIndex().add(task, sequence);
+        IntervalTree deadlines = current.deadlines();
+        IntervalTree events = current.events();
+        if (task instanceof Deadline) {
+            deadlines = deadlines.insert(task, task.getStartDate(), task.getStartDate(), sequence);
+        } else if (task instanceof Event event) {
+            events = events.insert(task, event.getStartDate(), event.getEndDate(), sequence);
+        }
+        return current.withTasks(current.tasks().insert(task, sequence), deadlines, events);
     }
 
     /**
@@ -78,22 +548,35 @@ public class TaskList {
     public String deleteTask(String input) throws BooException {
         assert input != null && !input.trim().isEmpty() : "Input must not be null or empty";
         int taskId = parseTaskId(input);
-        Task task = getTask(taskId);
-        tasksMap.remove(taskId);
-        shiftTasks(taskId);
-        updateTasks();
-        return ui.printRemovedTask(this.taskId, task);
+        return changeTask(taskId, index -> removeTask(taskId, index));
     }
 
-    private void shiftTasks(int deletedTaskId) {
-        for (int i = deletedTaskId + 1; i < taskId; i++) {
-            Task shiftedTask = tasksMap.get(i);
-            if (shiftedTask != null) {
-                tasksMap.put(i - 1, shiftedTask);
-                tasksMap.remove(i);
-            }
+    /**
+     * Removes the task at a position and publishes the snapshot without it.
+     * Must be called while holding the write lock.
+     */
+    private String removeTask(int taskId, int index) throws BooException {
+        Snapshot current = snapshot;
+        if (!isValidIndex(index, current.tasks())) {
+            throw new BooException("Task with ID " + taskId + " not found.");
+        }
+        long startTime = Metrics.startTimer();
+        Task task = current.tasks().get(index);
+        long sequence = current.tasks().sequenceAt(index);
+        IntervalTree deadlines = current.deadlines();
+        IntervalTree events = current.events();
+        if (task instanceof Deadline) {
+            deadlines = deadlines.remove(task.getStartDate(), sequence);
+        } else if (task instanceof Event) {
+            events = events.remove(task.getStartDate(), sequence);
         }
-        taskId--;
+        snapshot = current.withTasks(current.tasks().removeAt(index), deadlines, events);
+        current.searchIndex().remove(task);
+        reminders.cancel(sequence);
+        Metrics.stopTimer(UPDATE_TIME, startTime);
+        remember(new Revision(Storage.Change.DELETE, current, snapshot, null, task, sequence));
+        save(Storage.Change.DELETE, taskId, task);
+        return ui.printRemovedTask(current.taskCount(), task);
     }
 
     /**
@@ -106,15 +589,11 @@ public class TaskList {
     public String markAsDone(String input) throws BooException {
         assert input != null && !input.trim().isEmpty() : "Input must not be null or empty";
         int taskId = parseTaskId(input);
-        Task task = tasksMap.get(taskId);
-        if (task == null) {
-            throw new BooException("Oh no! Boo could not find task with ID " + taskId + ".\n"
-                    + "Maybe you mixed up the task IDS? Please try again!\nThere are currently "
-                    + tasksMap.size() + " tasks in your task list\n");
-        }
-        task.setAsDone();
-        updateTasks();
-        return ui.printMarkedTask(task);
+        return changeTask(taskId, index -> {
+            Task task = replaceWithDone(taskId, index, true);
+            save(Storage.Change.MARK, taskId, task);
+            return ui.printMarkedTask(task);
+        });
     }
 
     /**
@@ -127,98 +606,454 @@ public class TaskList {
     public String markAsNotDone(String input) throws BooException {
         assert input != null && !input.trim().isEmpty() : "Input must not be null or empty";
         int taskId = parseTaskId(input);
-        Task task = tasksMap.get(taskId);
-        if (task == null) {
-            throw new BooException("Oh no! Boo could not find task with ID " + taskId + ".\n"
-                    + "Maybe you mixed up the task IDS? Please try again!\nThere are currently "
-                    + tasksMap.size() + " tasks in your task list\n");
+        return changeTask(taskId, index -> {
+            Task task = replaceWithDone(taskId, index, false);
+            save(Storage.Change.UNMARK, taskId, task);
+            return ui.printUnmarkedTask(task);
+        });
+    }
+
+    /**
+     * Replaces the task at a position with a copy that has the given completion status, and publishes the
+     * snapshot that contains the copy.
+     * Must be called while holding the write lock.
+     *
+     * @return The copy of the task.
+     */
+    private Task replaceWithDone(int taskId, int index, boolean isDone) throws BooException {
+        long startTime = Metrics.startTimer();
+        Snapshot current = snapshot;
+        Task task = getTask(taskId, index, current.tasks());
+        long sequence = current.tasks().sequenceAt(index);
+        Task updatedTask = task.withDone(isDone);
+        // The copy is indexed before it is published and the original is removed after, so that a search
+        // through either snapshot can find one of them
+        current.searchIndex().add(updatedTask, sequence);
+        IntervalTree deadlines = current.deadlines();
+        IntervalTree events = current.events();
+        LocalDateTime startDate = task.getStartDate();
+        if (task instanceof Deadline) {
+            deadlines = deadlines.remove(startDate, sequence).insert(updatedTask, startDate, startDate, sequence);
+        } else if (task instanceof Event event) {
+            events = events.remove(startDate, sequence).insert(updatedTask, startDate, event.getEndDate(), sequence);
+        }
+        snapshot = current.withTasks(current.tasks().replaceAt(index, updatedTask), deadlines, events);
+        current.searchIndex().remove(task);
+        reminders.schedule(updatedTask, sequence);
+        Metrics.stopTimer(UPDATE_TIME, startTime);
+        Storage.Change change = isDone ? Storage.Change.MARK : Storage.Change.UNMARK;
+        remember(new Revision(change, current, snapshot, updatedTask, task, sequence));
+        return updatedTask;
+    }
+
+    /**
+     * Moves every done task into the storage's archive.
+     * Prints the number of tasks that were archived. Changes made before archiving can no longer be undone.
+     *
+     * @param input Input provided by the user.
+     * @throws BooException If there are no done tasks, if a batch of changes is in progress, or if the tasks
+     *     could not be archived.
+     */
+    public String archiveTasks(String input) throws BooException {
+        assert input != null && !input.trim().isEmpty() : "Input must not be null or empty";
+        if (!input.trim().equalsIgnoreCase("archive")) {
+            throw new BooException("Oops! Boo archives all your done tasks at once, so just say 'archive'.\n");
+        }
+        loadAllTasks();
+        synchronized (writeLock) {
+            if (isInBatch) {
+                // Archived tasks cannot be taken back out if the batch is rolled back
+                throw new BooException("Oops! Boo can only archive tasks outside of a batch of commands.\n");
+            }
+            int archivedCount = archiveTasksWhere(Task::isDone);
+            if (archivedCount == 0) {
+                throw new BooException("Oops! Boo could not find any done tasks to archive.\n");
+            }
+            return ui.printArchivedTasks(archivedCount);
+        }
+    }
+
+    /**
+     * Moves the tasks that satisfy a condition into the storage's archive, and saves the tasks that are left.
+     * Must be called while holding the write lock.
+     *
+     * @return Number of tasks that were archived.
+     */
+    private int archiveTasksWhere(Predicate<Task> condition) throws BooException {
+        List<Task> archivedTasks = new ArrayList<>();
+        for (Task task : snapshot.tasks()) {
+            if (condition.test(task)) {
+                archivedTasks.add(task);
+            }
+        }
+        if (archivedTasks.isEmpty()) {
+            return 0;
+        }
+        // The tasks are archived before they are removed, so that a failure cannot lose them
+        storage.archiveTasks(archivedTasks);
+        removeTasksWhere(condition);
+        undoHistory.clear();
+        redoHistory.clear();
+        storage.saveTasksToFile(getTasks());
+        return archivedTasks.size();
+    }
+
+    /**
+     * Removes the tasks that satisfy a condition and publishes the snapshot without them.
+     * Must be called while holding the write lock.
+     */
+    private void removeTasksWhere(Predicate<Task> condition) {
+        long startTime = Metrics.startTimer();
+        Snapshot current = snapshot;
+        TaskTree tasks = current.tasks();
+        IntervalTree deadlines = current.deadlines();
+        IntervalTree events = current.events();
+        List<Task> removedTasks = new ArrayList<>();
+        int index = 0;
+        while (index < tasks.size()) {
+            Task task = tasks.get(index);
+            if (!condition.test(task)) {
+                index++;
+                continue;
+            }
+            long sequence = tasks.sequenceAt(index);
+            if (task instanceof Deadline) {
+                deadlines = deadlines.remove(task.getStartDate(), sequence);
+            } else if (task instanceof Event) {
+                events = events.remove(task.getStartDate(), sequence);
+            }
+            tasks = tasks.removeAt(index);
+            reminders.cancel(sequence);
+            removedTasks.add(task);
+        }
+        snapshot = current.withTasks(tasks, deadlines, events);
+        for (Task task : removedTasks) {
+            current.searchIndex().remove(task);
+        }
+        Metrics.stopTimer(UPDATE_TIME, startTime);
+    }
+
+    /**
+     * Keeps a change so that it can be undone, and forgets the changes that could be redone.
+     * Must be called while holding the write lock.
+     */
+    private void remember(Revision revision) {
+        redoHistory.clear();
+        if (HISTORY_DEPTH == 0) {
+            return;
+        }
+        if (undoHistory.size() == HISTORY_DEPTH) {
+            undoHistory.removeFirst();
+        }
+        undoHistory.addLast(revision);
+    }
+
+    /**
+     * Undoes the latest change that has not been undone yet.
+     * Prints the task that was affected.
+     *
+     * @param input Input provided by the user.
+     * @throws BooException If there is no change to undo, or if the tasks could not be saved.
+     */
+    public String undo(String input) throws BooException {
+        synchronized (writeLock) {
+            Revision revision = undoHistory.pollLast();
+            if (revision == null) {
+                throw new BooException("Oops! There is nothing for Boo to undo.\n");
+            }
+            restore(revision.before(), revision.removedTask(), revision.addedTask(), revision.sequence());
+            redoHistory.addLast(revision);
+            Task task = revision.removedTask() != null ? revision.removedTask() : revision.addedTask();
+            return ui.printUndoneChange(revision.change(), task);
+        }
+    }
+
+    /**
+     * Makes the latest undone change again.
+     * Prints the task that was affected.
+     *
+     * @param input Input provided by the user.
+     * @throws BooException If there is no change to redo, or if the tasks could not be saved.
+     */
+    public String redo(String input) throws BooException {
+        synchronized (writeLock) {
+            Revision revision = redoHistory.pollLast();
+            if (revision == null) {
+                throw new BooException("Oops! There is nothing for Boo to redo.\n");
+            }
+            restore(revision.after(), revision.addedTask(), revision.removedTask(), revision.sequence());
+            undoHistory.addLast(revision);
+            Task task = revision.addedTask() != null ? revision.addedTask() : revision.removedTask();
+            return ui.printRedoneChange(revision.change(), task);
+        }
+    }
+
+    /**
+     * Publishes an earlier or later snapshot again, and brings the search index and reminders in line with it.
+     * The whole task list is saved, since a change that is undone cannot always be written as a journal record.
+     * Must be called while holding the write lock.
+     *
+     * @param target Snapshot to publish.
+     * @param restoredTask Task that is in the target snapshot but not the current one, if any.
+     * @param discardedTask Task that is in the current snapshot but not the target one, if any.
+     * @param sequence Sequence number of those tasks.
+     */
+    private void restore(Snapshot target, Task restoredTask, Task discardedTask, long sequence)
+            throws BooException {
+        long startTime = Metrics.startTimer();
+        SearchIndex searchIndex = target.searchIndex();
+        if (restoredTask != null) {
+            searchIndex.add(restoredTask, sequence);
+        }
+        snapshot = target;
+        if (discardedTask != null) {
+            searchIndex.remove(discardedTask);
+            reminders.cancel(sequence);
+        }
+        if (restoredTask != null) {
+            reminders.schedule(restoredTask, sequence);
+        }
+        Metrics.stopTimer(UPDATE_TIME, startTime);
+        if (!isInBatch) {
+            storage.saveTasksToFile(getTasks());
         }
-        task.setAsNotDone();
-        updateTasks();
-        return ui.printUnmarkedTask(task);
+    }
+
+    /**
+     * Lists the tasks, or one page of them if the input is in the form "list page N".
+     *
+     * @param input Input provided by the user.
+     * @throws BooException If the page is not a positive integer or does not exist.
+     */
+    public String listTasks(String input) throws BooException {
+        return ui.render(out -> listTasks(input, out));
+    }
+
+    /**
+     * Writes the tasks, or one page of them if the input is in the form "list page N", to a sink.
+     *
+     * @param input Input provided by the user.
+     * @param out Sink that the tasks are written to.
+     * @throws BooException If the page is not a positive integer or does not exist.
+     * @throws IOException If the sink could not be written to.
+     */
+    public void listTasks(String input, Appendable out) throws BooException, IOException {
+        assert input != null && !input.trim().isEmpty() : "Input must not be null or empty";
+        String arguments = input.trim().substring(4).trim();
+        if (!arguments.isEmpty() && !arguments.toLowerCase().startsWith("page ")) {
+            throw new BooException("Oops! Boo can only list your tasks by page, e.g. 'list page 2'.\n");
+        }
+        Snapshot current = snapshot;
+        int totalTasks = current.taskCount();
+        int page = arguments.isEmpty() ? 0 : parsePage(arguments.substring(5), totalTasks);
+        int firstId = page == 0 ? 1 : (page - 1) * Ui.PAGE_SIZE + 1;
+        Iterator<Task> tasks;
+        if (current.unloadedGroups().isEmpty()) {
+            tasks = current.tasks().iterator(firstId - 1);
+        } else {
+            // Only the unloaded groups that hold tasks to be listed are read
+            int lastId = page == 0 ? totalTasks : Math.min(page * Ui.PAGE_SIZE, totalTasks);
+            tasks = getTasksWithIds(current, firstId, lastId).iterator();
+        }
+        ui.writeTaskHistory(tasks, totalTasks, page, out);
     }
 
     /**
      * Finds tasks that contain a specific keyword.
+     * Keywords can be combined with AND and OR, e.g. "find book AND library OR homework".
+     * Only one page of matches is shown if the input ends with "page N".
+     * Archived tasks are searched instead if the keyword follows "--archived", e.g. "find --archived book".
      * Prints those tasks that contain that keyword.
      *
      * @param input Input that contains the keyword used to find the task.
-     * @throws BooException If no keyword is provided.
+     * @throws BooException If no keyword is provided, or if the page does not exist.
      */
     public String findTask(String input) throws BooException {
+        return ui.render(out -> findTask(input, out));
+    }
+
+    /**
+     * Writes the tasks that contain a specific keyword to a sink.
+     *
+     * @param input Input that contains the keyword used to find the task.
+     * @param out Sink that the matching tasks are written to.
+     * @throws BooException If no keyword is provided, or if the page does not exist.
+     * @throws IOException If the sink could not be written to.
+     */
+    public void findTask(String input, Appendable out) throws BooException, IOException {
         assert input != null && !input.trim().isEmpty() : "Input must not be null or empty";
         String keyword = extractKeyword(input);
-        String matchedTask = "Here are the matching tasks in your list:\n";
-        int numMatches = 0;
-        for (int taskId : tasksMap.keySet()) {
-            Task task = tasksMap.get(taskId);
-            assert task != null : "Task should not be null in the task map";
-            if (task.getDescription().toLowerCase().contains(keyword.toLowerCase())) {
-                numMatches++;
-                matchedTask += numMatches + ". " + task + "\n";
+        boolean isArchived = keyword.toLowerCase().startsWith("--archived");
+        if (isArchived) {
+            keyword = keyword.substring(10).trim();
+            if (keyword.isEmpty()) {
+                throw new BooException("Oops! Boo needs a keyword to find archived tasks.\n");
             }
         }
-        if (numMatches == 0) {
-            matchedTask = "Oh no! Boo could not find any tasks that contain that keyword :(\n";
+        String pageNumber = null;
+        int pageIndex = keyword.toLowerCase().lastIndexOf(" page ");
+        if (pageIndex >= 0 && keyword.substring(pageIndex + 6).trim().matches("\\d+")) {
+            pageNumber = keyword.substring(pageIndex + 6);
+            keyword = keyword.substring(0, pageIndex).trim();
+        }
+        if (isArchived) {
+            findArchivedTasks(keyword, pageNumber, out);
+            return;
         }
-        return ui.printMessage(matchedTask);
+        String query = keyword;
+        long startTime = Metrics.startTimer();
+        Snapshot current = snapshot;
+        List<Task> matches = addUnloadedMatches(current, current.searchIndex().search(query, current.tasks()),
+                (date, group) -> true, group -> group.searchIndex().search(query, group.tasks()));
+        Metrics.stopTimer(FIND_TIME, startTime);
+        int page = pageNumber == null ? 0 : parsePage(pageNumber, matches.size());
+        ui.writeMatchingTasks(matches, page, out);
     }
 
-    private String extractKeyword(String input) throws BooException {
-        try {
-            String keyword = input.substring(4).trim();
-            if (keyword.isEmpty()) {
-                throw new BooException("Oops! Boo needs a keyword to find tasks.\n");
+    /**
+     * Writes the archived tasks that match a query to a sink.
+     * The archive is read from the storage each time, since it is not kept in memory.
+     */
+    private void findArchivedTasks(String query, String pageNumber, Appendable out) throws BooException, IOException {
+        long startTime = Metrics.startTimer();
+        List<Task> matches = new ArrayList<>();
+        for (Task task : storage.loadArchivedTasks()) {
+            if (SearchIndex.matches(query, task)) {
+                matches.add(task);
             }
-            return keyword;
-        } catch (Exception e) {
-            throw new BooException("Oops! Boo needs a keyword to find tasks.\n");
         }
+        Metrics.stopTimer(FIND_TIME, startTime);
+        int page = pageNumber == null ? 0 : parsePage(pageNumber, matches.size());
+        ui.writeArchivedMatches(matches, page, out);
     }
 
     /**
-     * Sorts tasks based on their dates.
-     * Tasks without dates appear before the tasks with dates.
-     * Re-assign task IDs based on the new order of the tasks.
+     * Lists the deadlines that are due before a date, e.g. "due before 07/03/2025".
+     *
+     * @param input Input provided by the user.
+     * @return Deadlines due before the date, in order of their dates.
+     * @throws BooException If no date is provided, or if the date is in the wrong format.
      */
-    private void sortTasks() {
-        List<Map.Entry<Integer, Task>> sortedEntries = tasksMap.entrySet().stream()
-                .sorted(Map.Entry.comparingByValue(this::compareTasksByDate))
-                .toList();
-        reassignTaskIds(sortedEntries);
+    public String findTasksDueBefore(String input) throws BooException {
+        String arguments = input.trim().substring(3).trim();
+        if (!arguments.toLowerCase().startsWith("before ")) {
+            throw new BooException("Oops! Boo needs a date to look before, e.g. 'due before 07/03/2025'.\n");
+        }
+        String date = arguments.substring(7).trim();
+        LocalDateTime before = Parser.parseDateTime(date);
+        LocalDateTime to = before.minusNanos(1);
+        Snapshot current = snapshot;
+        List<Task> dueTasks = addUnloadedMatches(current, current.deadlines().findOverlapping(LocalDateTime.MIN, to),
+                (groupDate, group) -> group.startsBefore() != null && groupDate.isBefore(before),
+                group -> group.deadlines().findOverlapping(LocalDateTime.MIN, to));
+        return ui.printTasksInRange(dueTasks, "due before " + date);
     }
 
-    private int compareTasksByDate(Task task1, Task task2) {
-        // If both tasks have no date, they stay in original order
-        if (task1.getStartDate() == null && task2.getStartDate() == null) {
-            return 0;
+    /**
+     * Lists the deadlines and events on a day, e.g. "on 07/03/2025".
+     *
+     * @param input Input provided by the user.
+     * @return Deadlines due on the day and events that take up part of it, in order of their dates.
+     * @throws BooException If no date is provided, or if the date is in the wrong format.
+     */
+    public String findTasksOn(String input) throws BooException {
+        String date = input.trim().substring(2).trim();
+        if (date.isEmpty()) {
+            throw new BooException("Oops! Boo needs a date, e.g. 'on 07/03/2025'.\n");
         }
-        // If task1 has no date, but task2 has a date, task1 should appear first
-        if (task1.getStartDate() == null) {
-            return -1;
+        LocalDateTime day = Parser.parseDateTime(date).toLocalDate().atStartOfDay();
+        return ui.printTasksInRange(findTasksBetween(day, day.plusDays(1).minusNanos(1)), "on " + date);
+    }
+
+    /**
+     * Lists the deadlines and events between two dates, e.g. "between 01/03/2025 and 07/03/2025".
+     * If the second date has no time, the whole of that day is included.
+     *
+     * @param input Input provided by the user.
+     * @return Deadlines due between the dates and events that overlap them, in order of their dates.
+     * @throws BooException If the dates are missing, in the wrong format, or in the wrong order.
+     */
+    public String findTasksBetween(String input) throws BooException {
+        String arguments = input.trim().substring(7).trim();
+        int andIndex = arguments.toLowerCase().indexOf(" and ");
+        if (andIndex < 0) {
+            throw new BooException("Oops! Boo needs two dates, e.g. 'between 01/03/2025 and 07/03/2025'.\n");
+        }
+        String fromDate = arguments.substring(0, andIndex).trim();
+        String toDate = arguments.substring(andIndex + 5).trim();
+        LocalDateTime from = Parser.parseDateTime(fromDate);
+        LocalDateTime to = Parser.parseDateTime(toDate);
+        if (!toDate.contains(" ")) {
+            to = to.plusDays(1).minusNanos(1);
         }
-        // If task2 has a date, but task1 has no date, task2 should appear after task1
-        if (task2.getStartDate() == null) {
-            return 1;
+        if (to.isBefore(from)) {
+            throw new BooException("Oh no! Boo needs the second date to come after the first one.\n");
+        }
+        return ui.printTasksInRange(findTasksBetween(from, to), "between " + fromDate + " and " + toDate);
+    }
+
+    /**
+     * Returns the deadlines and events that overlap a range of dates, in order of their dates.
+     */
+    private List<Task> findTasksBetween(LocalDateTime from, LocalDateTime to) throws BooException {
+        Snapshot current = snapshot;
+        return addUnloadedMatches(current, findTasksBetween(current, from, to),
+                (date, group) -> group.endDate() != null && !date.isAfter(to) && !group.endDate().isBefore(from),
+                group -> findTasksBetween(group, from, to));
+    }
+
+    private static List<Task> findTasksBetween(Snapshot current, LocalDateTime from, LocalDateTime to) {
+        List<Task> dueTasks = current.deadlines().findOverlapping(from, to);
+        List<Task> ongoingTasks = current.events().findOverlapping(from, to);
+        List<Task> matches = new ArrayList<>(dueTasks.size() + ongoingTasks.size());
+        int i = 0;
+        int j = 0;
+        while (i < dueTasks.size() || j < ongoingTasks.size()) {
+            boolean isDueTaskNext = j == ongoingTasks.size() || (i < dueTasks.size()
+                    && !dueTasks.get(i).getStartDate().isAfter(ongoingTasks.get(j).getStartDate()));
+            matches.add(isDueTaskNext ? dueTasks.get(i++) : ongoingTasks.get(j++));
         }
-        return task1.getStartDate().compareTo(task2.getStartDate());
+        return matches;
     }
 
-    private void reassignTaskIds(List<Map.Entry<Integer, Task>> sortedEntries) {
-        tasksMap.clear();
-        int newId = 1;
-        for (Map.Entry<Integer, Task> entry : sortedEntries) {
-            tasksMap.put(newId++, entry.getValue());
+    private int parsePage(String pageNumber, int totalTasks) throws BooException {
+        int page;
+        try {
+            page = Integer.parseInt(pageNumber.trim());
+        } catch (NumberFormatException e) {
+            throw new BooException("Oops! Boo needs your page number to be an integer!\n");
         }
-        taskId = newId;
+        int pageCount = Ui.getPageCount(totalTasks);
+        if (page < 1 || page > pageCount) {
+            throw new BooException("Oh no! Boo could not find page " + page + ".\n"
+                    + "There are only " + pageCount + " pages.\n");
+        }
+        return page;
     }
 
-    private Task getTask(int taskId) throws BooException {
-        Task task = tasksMap.get(taskId);
-        if (task == null) {
-            throw new BooException("Task with ID " + taskId + " not found.");
+    private String extractKeyword(String input) throws BooException {
+        try {
+            String keyword = input.substring(4).trim();
+            if (keyword.isEmpty()) {
+                throw new BooException("Oops! Boo needs a keyword to find tasks.\n");
+            }
+            return keyword;
+        } catch (Exception e) {
+            throw new BooException("Oops! Boo needs a keyword to find tasks.\n");
         }
-        return task;
+    }
+
+    private boolean isValidIndex(int index, TaskTree tasks) {
+        return index >= 0 && index < tasks.size();
+    }
+
+    private Task getTask(int taskId, int index, TaskTree tasks) throws BooException {
+        if (taskId < 1 || !isValidIndex(index, tasks)) {
+            throw new BooException("Oh no! Boo could not find task with ID " + taskId + ".\n"
+                    + "Maybe you mixed up the task IDS? Please try again!\nThere are currently "
+                    + snapshot.taskCount() + " tasks in your task list\n");
+        }
+        return tasks.get(index);
     }
 
     private int parseTaskId(String input) throws BooException {
@@ -232,9 +1067,4 @@ public class TaskList {
         }
     }
 
-    private void updateTasks() throws BooException {
-        sortTasks();
-        save();
-    }
-
 }
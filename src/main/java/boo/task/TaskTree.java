@@ -0,0 +1,314 @@
+package boo.task;
+
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.function.ObjLongConsumer;
+
+/**
+ * Represents tasks kept in order of their dates, with tasks without dates first.
+ * Tasks with the same date are kept in order of their sequence numbers, i.e. the order they were added.
+ *
+ * The tasks are stored in a treap where every node knows the size of its subtree, so the position of a
+ * task is never stored. Finding, inserting and removing the task at a position all take O(log n) time.
+ * Nodes are never modified once created: an update copies the nodes on its path and returns a new tree.
+ */
+final class TaskTree implements Iterable<Task> {
+    static final TaskTree EMPTY = new TaskTree(null);
+
+    private final Node root;
+
+    private static final class Node {
+        private final Task task;
+        private final LocalDateTime date;
+        private final long sequence;
+        private final long priority;
+        private final Node left;
+        private final Node right;
+        private final int size;
+
+        private Node(Task task, LocalDateTime date, long sequence, long priority, Node left, Node right) {
+            this.task = task;
+            this.date = date;
+            this.sequence = sequence;
+            this.priority = priority;
+            this.left = left;
+            this.right = right;
+            this.size = 1 + sizeOf(left) + sizeOf(right);
+        }
+
+        private Node withChildren(Node left, Node right) {
+            return new Node(task, date, sequence, priority, left, right);
+        }
+    }
+
+    private TaskTree(Node root) {
+        this.root = root;
+    }
+
+    int size() {
+        return sizeOf(root);
+    }
+
+    /**
+     * Returns the task at the given position.
+     *
+     * @param index Position of the task, starting from 0.
+     * @return Task at that position.
+     */
+    Task get(int index) {
+        return nodeAt(index).task;
+    }
+
+    /**
+     * Returns the sequence number of the task at the given position.
+     *
+     * @param index Position of the task, starting from 0.
+     * @return Sequence number of that task.
+     */
+    long sequenceAt(int index) {
+        return nodeAt(index).sequence;
+    }
+
+    private Node nodeAt(int index) {
+        assert index >= 0 && index < size() : "Index out of bounds";
+        Node node = root;
+        while (true) {
+            int leftSize = sizeOf(node.left);
+            if (index < leftSize) {
+                node = node.left;
+            } else if (index > leftSize) {
+                index -= leftSize + 1;
+                node = node.right;
+            } else {
+                return node;
+            }
+        }
+    }
+
+    /**
+     * Returns a tree that also contains the given task, placed according to its date and sequence number.
+     *
+     * @param task Task to insert.
+     * @param sequence Sequence number of the task, which must be larger than that of every task inserted before.
+     * @return Tree containing the task.
+     */
+    TaskTree insert(Task task, long sequence) {
+        LocalDateTime date = task.getStartDate();
+        Node[] parts = split(root, rankOf(date, sequence));
+        Node node = new Node(task, date, sequence, priorityOf(sequence), null, null);
+        return new TaskTree(merge(merge(parts[0], node), parts[1]));
+    }
+
+    /**
+     * Returns a tree without the task at the given position.
+     *
+     * @param index Position of the task, starting from 0.
+     * @return Tree without that task.
+     */
+    TaskTree removeAt(int index) {
+        assert index >= 0 && index < size() : "Index out of bounds";
+        Node[] parts = split(root, index);
+        Node[] rest = split(parts[1], 1);
+        return new TaskTree(merge(parts[0], rest[1]));
+    }
+
+    /**
+     * Returns a tree where the task at the given position is replaced by another task with the same date.
+     *
+     * @param index Position of the task, starting from 0.
+     * @param task Task to put in its place.
+     * @return Tree containing the other task instead.
+     */
+    TaskTree replaceAt(int index, Task task) {
+        assert index >= 0 && index < size() : "Index out of bounds";
+        return new TaskTree(replaceAt(root, index, task));
+    }
+
+    private static Node replaceAt(Node node, int index, Task task) {
+        int leftSize = sizeOf(node.left);
+        if (index < leftSize) {
+            return node.withChildren(replaceAt(node.left, index, task), node.right);
+        }
+        if (index > leftSize) {
+            return node.withChildren(node.left, replaceAt(node.right, index - leftSize - 1, task));
+        }
+        assert Objects.equals(task.getStartDate(), node.date) : "Replacement should have the same date";
+        return new Node(task, node.date, node.sequence, node.priority, node.left, node.right);
+    }
+
+    /**
+     * Returns true if the tree holds the given task under the given sequence number.
+     *
+     * @param task Task to look for.
+     * @param sequence Sequence number of the task.
+     * @return Whether the task is in the tree.
+     */
+    boolean contains(Task task, long sequence) {
+        LocalDateTime date = task.getStartDate();
+        Node node = root;
+        while (node != null) {
+            int comparison = compare(date, sequence, node.date, node.sequence);
+            if (comparison == 0) {
+                return node.task == task;
+            }
+            node = comparison < 0 ? node.left : node.right;
+        }
+        return false;
+    }
+
+    /**
+     * Performs an action on every task and its sequence number, in order.
+     *
+     * @param action Action to perform.
+     */
+    void forEach(ObjLongConsumer<Task> action) {
+        forEach(root, action);
+    }
+
+    private static void forEach(Node node, ObjLongConsumer<Task> action) {
+        while (node != null) {
+            forEach(node.left, action);
+            action.accept(node.task, node.sequence);
+            node = node.right;
+        }
+    }
+
+    @Override
+    public Iterator<Task> iterator() {
+        return iterator(0);
+    }
+
+    /**
+     * Returns an iterator over the tasks in order, starting from the given position.
+     *
+     * @param fromIndex Position of the first task to return, starting from 0.
+     * @return Iterator over the tasks.
+     */
+    Iterator<Task> iterator(int fromIndex) {
+        Deque<Node> path = new ArrayDeque<>();
+        Node node = root;
+        int index = fromIndex;
+        while (node != null) {
+            int leftSize = sizeOf(node.left);
+            if (index <= leftSize) {
+                path.push(node);
+                node = node.left;
+            } else {
+                index -= leftSize + 1;
+                node = node.right;
+            }
+        }
+        return new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return !path.isEmpty();
+            }
+
+            @Override
+            public Task next() {
+                if (path.isEmpty()) {
+                    throw new NoSuchElementException();
+                }
+                Node next = path.pop();
+                for (Node child = next.right; child != null; child = child.left) {
+                    path.push(child);
+                }
+                return next.task;
+            }
+        };
+    }
+
+    /**
+     * Returns the number of tasks that have no date or a date before the given date.
+     *
+     * @param date Date to count up to.
+     * @return Number of tasks before the date.
+     */
+    int countBefore(LocalDateTime date) {
+        assert date != null : "Date must not be null";
+        return rankOf(date, Long.MIN_VALUE);
+    }
+
+    /**
+     * Returns the number of tasks that come before the given date and sequence number.
+     */
+    private int rankOf(LocalDateTime date, long sequence) {
+        int rank = 0;
+        Node node = root;
+        while (node != null) {
+            if (compare(date, sequence, node.date, node.sequence) < 0) {
+                node = node.left;
+            } else {
+                rank += sizeOf(node.left) + 1;
+                node = node.right;
+            }
+        }
+        return rank;
+    }
+
+    /**
+     * Splits a subtree into its first {@code count} tasks and the remaining tasks.
+     */
+    private static Node[] split(Node node, int count) {
+        if (node == null) {
+            return new Node[] {null, null};
+        }
+        int leftSize = sizeOf(node.left);
+        if (count <= leftSize) {
+            Node[] parts = split(node.left, count);
+            return new Node[] {parts[0], node.withChildren(parts[1], node.right)};
+        }
+        Node[] parts = split(node.right, count - leftSize - 1);
+        return new Node[] {node.withChildren(node.left, parts[0]), parts[1]};
+    }
+
+    /**
+     * Joins two subtrees where every task in the first comes before every task in the second.
+     */
+    private static Node merge(Node first, Node second) {
+        if (first == null) {
+            return second;
+        }
+        if (second == null) {
+            return first;
+        }
+        if (first.priority > second.priority) {
+            return first.withChildren(first.left, merge(first.right, second));
+        }
+        return second.withChildren(merge(first, second.left), second.right);
+    }
+
+    /**
+     * Compares two tasks by their dates and then by their sequence numbers, with tasks without dates first.
+     */
+    static int compare(LocalDateTime date1, long sequence1, LocalDateTime date2, long sequence2) {
+        if (date1 == null && date2 != null) {
+            return -1;
+        }
+        if (date1 != null && date2 == null) {
+            return 1;
+        }
+        if (date1 != null && !date1.equals(date2)) {
+            return date1.compareTo(date2);
+        }
+        return Long.compare(sequence1, sequence2);
+    }
+
+    private static int sizeOf(Node node) {
+        return node == null ? 0 : node.size;
+    }
+
+    /**
+     * Scrambles the sequence number into a pseudo-random priority that keeps the treap balanced.
+     */
+    static long priorityOf(long sequence) {
+        long z = sequence + 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
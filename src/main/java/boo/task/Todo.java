@@ -24,7 +24,7 @@ public class Todo extends Task {
      * @return A formatted string showing the task type, the task's completion status, and task description.
      */
     @Override
-    public String toString() {
-        return "[T]" + super.toString();
+    protected String formatDisplayString() {
+        return "[T]" + super.formatDisplayString();
     }
 }
@@ -0,0 +1,110 @@
+package boo.misc;
+
+import boo.task.Deadline;
+import boo.task.Event;
+import boo.task.Task;
+import boo.task.TaskList;
+import boo.task.Todo;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.zip.CRC32;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Used to test methods in the BinaryStorage class.
+ */
+public class BinaryStorageTest {
+    @TempDir
+    Path tempDir;
+
+    /**
+     * Tests if tasks saved in the binary format are loaded back unchanged.
+     *
+     * @throws BooException If the tasks could not be saved or loaded.
+     */
+    @Test
+    public void saveAndLoadTest() throws BooException {
+        String filePath = tempDir.resolve("Boo.bin").toString();
+        String legacyFilePath = tempDir.resolve("Boo.txt").toString();
+        TaskList taskList = new TaskList(new BinaryStorage(filePath, legacyFilePath), new Ui());
+        taskList.addTask(new Todo("read book ✓"));
+        taskList.addTask(new Deadline("return book", "02/02/2025 1800"));
+        taskList.addTask(new Event("project meeting", "03/02/2025 1400", "03/02/2025 1600"));
+        taskList.markAsDone("mark 2");
+
+        BinaryStorage storage = new BinaryStorage(filePath, legacyFilePath);
+        storage.saveTasksToFile(taskList.getTasks());
+        String expected = new Ui().printTaskHistory(taskList.getTasks());
+        assertEquals(expected, new Ui().printTaskHistory(new BinaryStorage(filePath, legacyFilePath)
+                .loadTasksFromFile()));
+    }
+
+    /**
+     * Tests if tasks are migrated from the legacy text file only once.
+     *
+     * @throws Exception If the tasks could not be saved or loaded.
+     */
+    @Test
+    public void migrationTest() throws Exception {
+        String filePath = tempDir.resolve("Boo.bin").toString();
+        String legacyFilePath = tempDir.resolve("Boo.txt").toString();
+        Files.writeString(Path.of(legacyFilePath), "taskID: 1 || Todo task || isDone: false || homework\n"
+                + "taskID: 2 || Deadline task || isDone: true || task (by: 02 Feb 2023 12:00 am)\n");
+
+        assertEquals(2, new BinaryStorage(filePath, legacyFilePath).loadTasksFromFile().size());
+        assertTrue(Files.exists(Path.of(filePath)));
+        assertFalse(Files.exists(Path.of(legacyFilePath)));
+        assertEquals(2, new BinaryStorage(filePath, legacyFilePath).loadTasksFromFile().size());
+        assertFalse(Files.exists(Path.of(legacyFilePath + ".journal")));
+    }
+
+    /**
+     * Tests if the changes in the legacy journal are migrated, and if the journal is deleted afterwards.
+     *
+     * @throws Exception If the tasks could not be saved or loaded.
+     */
+    @Test
+    public void journalMigrationTest() throws Exception {
+        String filePath = tempDir.resolve("Boo.bin").toString();
+        String legacyFilePath = tempDir.resolve("Boo.txt").toString();
+        byte[] legacyFile = "taskID: 1 || Todo task || isDone: false || homework\n".getBytes(StandardCharsets.UTF_8);
+        Files.write(Path.of(legacyFilePath), legacyFile);
+        CRC32 checksum = new CRC32();
+        checksum.update(legacyFile);
+        Files.writeString(Path.of(legacyFilePath + ".journal"), "SNAPSHOT " + checksum.getValue() + " 0\n"
+                + "MARK || 1\n");
+
+        List<Task> tasks = new BinaryStorage(filePath, legacyFilePath).loadTasksFromFile();
+        assertEquals("[T][X] homework", tasks.get(0).toString());
+        assertFalse(Files.exists(Path.of(legacyFilePath + ".journal")));
+    }
+
+    /**
+     * Tests if a damaged binary file is detected by its checksum.
+     *
+     * @throws Exception If the tasks could not be saved.
+     */
+    @Test
+    public void checksumTest() throws Exception {
+        String filePath = tempDir.resolve("Boo.bin").toString();
+        String legacyFilePath = tempDir.resolve("Boo.txt").toString();
+        TaskList taskList = new TaskList(new BinaryStorage(filePath, legacyFilePath), new Ui());
+        taskList.addTask(new Todo("homework"));
+        new BinaryStorage(filePath, legacyFilePath).saveTasksToFile(taskList.getTasks());
+
+        byte[] bytes = Files.readAllBytes(Path.of(filePath));
+        bytes[bytes.length - 6] ^= 1;
+        Files.write(Path.of(filePath), bytes);
+        assertThrows(BooException.class, () -> new BinaryStorage(filePath, legacyFilePath).loadTasksFromFile());
+    }
+}
@@ -0,0 +1,34 @@
+package boo.misc;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Used to test methods in the CommandRouter class.
+ */
+public class CommandRouterTest {
+
+    /**
+     * Tests if inputs are routed by the verb they start with, ignoring case and preferring the longest verb.
+     */
+    @Test
+    public void routeTest() {
+        CommandRouter<String> router = new CommandRouter<>();
+        router.register("mark", "mark");
+        router.register("unmark", "unmark");
+        router.register("list", "list");
+        router.register("listall", "listall");
+        router.registerExact("bye", "bye");
+
+        assertEquals("mark", router.route("mark 2"));
+        assertEquals("unmark", router.route("UnMark 2"));
+        assertEquals("list", router.route("LIST page 2"));
+        assertEquals("listall", router.route("listall"));
+        assertEquals("bye", router.route("Bye"));
+        assertNull(router.route("bye now"));
+        assertNull(router.route("unma"));
+        assertNull(router.route(""));
+    }
+}
@@ -0,0 +1,35 @@
+package boo.misc;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Used to test methods in the Histogram class.
+ */
+public class HistogramTest {
+
+    /**
+     * Tests if percentiles are found to within the precision of a bucket.
+     */
+    @Test
+    public void percentileTest() {
+        Histogram histogram = new Histogram();
+        for (long micros = 1; micros <= 1000; micros++) {
+            histogram.record(micros * 1000);
+        }
+
+        assertEquals(1000, histogram.getCount());
+        assertEquals(1_000_000, histogram.getMax());
+        long median = histogram.getPercentile(50);
+        assertTrue(median > 500_000 * 0.93 && median <= 500_000, "Median was " + median);
+        long p999 = histogram.getPercentile(99.9);
+        assertTrue(p999 > 999_000 * 0.93 && p999 <= 999_000, "p999 was " + p999);
+        assertEquals(0, new Histogram().getPercentile(50));
+
+        histogram.reset();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getPercentile(99));
+    }
+}
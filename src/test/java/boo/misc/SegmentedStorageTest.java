@@ -0,0 +1,247 @@
+package boo.misc;
+
+import boo.task.Deadline;
+import boo.task.Event;
+import boo.task.TaskList;
+import boo.task.Todo;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Used to test methods in the SegmentedStorage class.
+ */
+public class SegmentedStorageTest {
+    private static final Clock CLOCK = Clock.fixed(Instant.parse("2025-03-15T12:00:00Z"), ZoneOffset.UTC);
+
+    @TempDir
+    Path tempDir;
+
+    private SegmentedStorage createStorage() {
+        return new SegmentedStorage(tempDir.resolve("tasks").toString(), null, CLOCK, 1, 1 << 18);
+    }
+
+    /**
+     * Tests if only the segments around the current month are loaded at first, and if the other segments are
+     * loaded once a command needs them.
+     *
+     * @throws BooException If the tasks could not be saved or loaded.
+     */
+    @Test
+    public void lazyLoadingTest() throws BooException {
+        SegmentedStorage firstStorage = createStorage();
+        TaskList taskList = new TaskList(firstStorage, new Ui());
+        TaskList expectedTaskList = new TaskList(new Storage(tempDir.resolve("Boo.txt").toString()), new Ui());
+        for (TaskList list : new TaskList[] {taskList, expectedTaskList}) {
+            list.addTask(new Todo("read book"));
+            list.addTask(new Deadline("tax return", "30/04/2025"));
+            list.addTask(new Deadline("old essay", "02/02/2023"));
+            list.addTask(new Event("conference", "28/12/2026 0900", "02/01/2027 1700"));
+        }
+        expectedTaskList.addTask(new Todo("laundry"));
+        firstStorage.close();
+
+        SegmentedStorage storage = createStorage();
+        assertEquals(2, storage.loadTasksFromFile().size());
+        assertEquals(2, storage.getUnloadedTaskCount());
+
+        TaskList reloadedTaskList = new TaskList(createStorage(), new Ui());
+        assertTrue(reloadedTaskList.findTasksOn("on 01/01/2027").contains("conference"));
+        assertTrue(reloadedTaskList.addTask(new Todo("laundry")).contains("Now you have 5 tasks"));
+        assertEquals(expectedTaskList.listTasks("list"), reloadedTaskList.listTasks("list"));
+    }
+
+    /**
+     * Tests if commands on one task only load the segment that holds it, and if searches leave the segments
+     * unloaded, on a store that spans several years.
+     *
+     * @throws BooException If the tasks could not be saved or loaded.
+     */
+    @Test
+    public void singleSegmentTest() throws BooException {
+        SegmentedStorage firstStorage = createStorage();
+        TaskList taskList = new TaskList(firstStorage, new Ui());
+        TaskList expectedTaskList = new TaskList(new Storage(tempDir.resolve("Boo.txt").toString()), new Ui());
+        for (TaskList list : new TaskList[] {taskList, expectedTaskList}) {
+            list.addTask(new Deadline("spring essay", "15/03/2025"));
+            list.addTask(new Deadline("old report", "10/05/2021"));
+            list.addTask(new Deadline("old quiz", "20/05/2021"));
+            list.addTask(new Deadline("old essay", "01/07/2022"));
+            list.addTask(new Deadline("old exam", "05/01/2023"));
+        }
+        firstStorage.close();
+
+        SegmentedStorage storage = createStorage();
+        TaskList reloadedTaskList = new TaskList(storage, new Ui());
+        assertEquals(4, storage.getUnloadedTaskCount());
+
+        String foundTasks = reloadedTaskList.findTask("find old");
+        assertEquals(expectedTaskList.findTask("find old"), foundTasks);
+        assertEquals(4, storage.getUnloadedTaskCount());
+
+        reloadedTaskList.markAsDone("mark 1");
+        expectedTaskList.markAsDone("mark 1");
+        assertEquals(2, storage.getUnloadedTaskCount());
+
+        assertTrue(reloadedTaskList.markAsDone("mark 4").contains("old exam"));
+        expectedTaskList.markAsDone("mark 4");
+        assertEquals(1, storage.getUnloadedTaskCount());
+
+        reloadedTaskList.deleteTask("delete 3");
+        expectedTaskList.deleteTask("delete 3");
+        assertEquals(0, storage.getUnloadedTaskCount());
+        assertEquals(expectedTaskList.listTasks("list"), reloadedTaskList.listTasks("list"));
+    }
+
+    /**
+     * Tests if listing a page and date queries read the segments they need without loading them, and if each
+     * unloaded segment is read only once.
+     *
+     * @throws Exception If the tasks could not be saved or loaded.
+     */
+    @Test
+    public void unloadedQueriesTest() throws Exception {
+        SegmentedStorage firstStorage = createStorage();
+        TaskList taskList = new TaskList(firstStorage, new Ui());
+        TaskList expectedTaskList = new TaskList(new Storage(tempDir.resolve("Boo.txt").toString()), new Ui());
+        for (TaskList list : new TaskList[] {taskList, expectedTaskList}) {
+            list.addTask(new Todo("read book"));
+            list.addTask(new Deadline("spring essay", "15/03/2025"));
+            list.addTask(new Deadline("old report", "10/05/2021"));
+            list.addTask(new Event("old trip", "28/06/2022 0900", "02/07/2022 1700"));
+        }
+        firstStorage.close();
+
+        SegmentedStorage storage = createStorage();
+        TaskList reloadedTaskList = new TaskList(storage, new Ui());
+        assertEquals(expectedTaskList.listTasks("list page 1"), reloadedTaskList.listTasks("list page 1"));
+        assertEquals(expectedTaskList.findTasksDueBefore("due before 01/01/2025"),
+                reloadedTaskList.findTasksDueBefore("due before 01/01/2025"));
+        assertEquals(expectedTaskList.findTasksBetween("between 01/07/2022 and 31/12/2022"),
+                reloadedTaskList.findTasksBetween("between 01/07/2022 and 31/12/2022"));
+        assertEquals(2, storage.getUnloadedTaskCount());
+
+        Files.delete(tempDir.resolve("tasks").resolve("2021-05.bin"));
+        assertEquals(expectedTaskList.findTask("find old"), reloadedTaskList.findTask("find old"));
+    }
+
+    /**
+     * Tests if a change is only appended to the journal of its segment, and if the journals are folded into
+     * their segments once the storage is closed.
+     *
+     * @throws Exception If the tasks could not be saved or loaded.
+     */
+    @Test
+    public void segmentJournalTest() throws Exception {
+        SegmentedStorage storage = createStorage();
+        TaskList taskList = new TaskList(storage, new Ui());
+        taskList.addTask(new Deadline("tax return", "30/04/2025"));
+        taskList.addTask(new Deadline("old essay", "02/02/2023"));
+        storage.close();
+        Path oldSegment = tempDir.resolve("tasks").resolve("2023-02.bin");
+        Path newSegment = tempDir.resolve("tasks").resolve("2025-04.bin");
+        FileTime oldTime = FileTime.fromMillis(0);
+        Files.setLastModifiedTime(oldSegment, oldTime);
+        Files.setLastModifiedTime(newSegment, oldTime);
+
+        storage = createStorage();
+        taskList = new TaskList(storage, new Ui());
+        taskList.markAsDone("mark 2");
+        assertEquals(oldTime, Files.getLastModifiedTime(oldSegment));
+        assertEquals(oldTime, Files.getLastModifiedTime(newSegment));
+        assertTrue(Files.readString(Paths.get(newSegment + ".journal")).contains("MARK || 1"));
+        assertEquals("[D][X] tax return (by: 30 Apr 2025 12:00 AM)",
+                createStorage().loadTasksFromFile().get(0).toString());
+
+        taskList.deleteTask("delete 1");
+        SegmentedStorage reloadedStorage = createStorage();
+        assertEquals(1, reloadedStorage.loadTasksFromFile().size());
+        assertEquals(0, reloadedStorage.getUnloadedTaskCount());
+        reloadedStorage.close();
+        storage.close();
+        assertTrue(Files.notExists(oldSegment));
+        assertNotEquals(oldTime, Files.getLastModifiedTime(newSegment));
+        assertEquals(1, createStorage().loadTasksFromFile().size());
+    }
+
+    /**
+     * Tests if the journals are folded into their segments in the background once they grow past the threshold,
+     * and if a full save only rewrites the segments whose tasks have changed.
+     *
+     * @throws Exception If the tasks could not be saved or loaded.
+     */
+    @Test
+    public void compactionTest() throws Exception {
+        SegmentedStorage storage = new SegmentedStorage(tempDir.resolve("tasks").toString(), null, CLOCK, 1, 1);
+        TaskList taskList = new TaskList(storage, new Ui());
+        taskList.addTask(new Deadline("tax return", "30/04/2025"));
+        taskList.addTask(new Deadline("old essay", "02/02/2023"));
+        storage.awaitCompaction();
+        Path oldSegment = tempDir.resolve("tasks").resolve("2023-02.bin");
+        assertTrue(Files.exists(oldSegment));
+        assertEquals(1, createStorage().loadTasksFromFile().size());
+
+        FileTime oldTime = FileTime.fromMillis(0);
+        Files.setLastModifiedTime(oldSegment, oldTime);
+        taskList.markAsDone("mark 2");
+        taskList.undo("undo");
+        assertEquals(oldTime, Files.getLastModifiedTime(oldSegment));
+        assertEquals("[D][ ] tax return (by: 30 Apr 2025 12:00 AM)",
+                createStorage().loadTasksFromFile().get(0).toString());
+    }
+
+    /**
+     * Tests if a segment that the manifest marks as being written is loaded at first, instead of trusting its
+     * count in the manifest.
+     *
+     * @throws Exception If the tasks could not be saved or loaded.
+     */
+    @Test
+    public void interruptedWriteTest() throws Exception {
+        SegmentedStorage storage = createStorage();
+        TaskList taskList = new TaskList(storage, new Ui());
+        taskList.addTask(new Deadline("old essay", "02/02/2023"));
+        taskList.addTask(new Deadline("old quiz", "10/02/2023"));
+        storage.close();
+        Files.writeString(tempDir.resolve("tasks").resolve("manifest.txt"),
+                "2023-02 || 5 || 2023-02-10T00:00 || writing\n");
+
+        SegmentedStorage reloadedStorage = createStorage();
+        assertEquals(2, reloadedStorage.loadTasksFromFile().size());
+        assertEquals(0, reloadedStorage.getUnloadedTaskCount());
+        reloadedStorage.close();
+        assertEquals("2023-02 || 2 || 2023-02-10T00:00\n",
+                Files.readString(tempDir.resolve("tasks").resolve("manifest.txt")));
+    }
+
+    /**
+     * Tests if tasks are migrated from a legacy storage the first time they are loaded.
+     *
+     * @throws Exception If the tasks could not be saved or loaded.
+     */
+    @Test
+    public void migrationTest() throws Exception {
+        Path legacyFilePath = tempDir.resolve("Boo.txt");
+        Files.writeString(legacyFilePath, "taskID: 1 || Todo task || isDone: false || homework\n"
+                + "taskID: 2 || Deadline task || isDone: true || task (by: 02 Feb 2023 12:00 am)\n");
+        Storage legacyStorage = new Storage(legacyFilePath.toString());
+
+        SegmentedStorage storage = new SegmentedStorage(tempDir.resolve("tasks").toString(), legacyStorage,
+                CLOCK, 1, 1 << 18);
+        assertEquals(1, storage.loadTasksFromFile().size());
+        assertEquals(1, storage.getUnloadedTaskCount());
+        assertTrue(Files.exists(tempDir.resolve("tasks").resolve("2023-02.bin")));
+    }
+}
@@ -0,0 +1,113 @@
+package boo.misc;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Used to test methods in the Server class.
+ */
+public class ServerTest {
+
+    /**
+     * Represents a connection to the server that sends one command at a time.
+     */
+    private static class Client implements AutoCloseable {
+        private final Socket socket;
+        private final BufferedReader in;
+        private final PrintWriter out;
+
+        private Client(int port) throws IOException {
+            socket = new Socket(InetAddress.getLoopbackAddress(), port);
+            in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+            out = new PrintWriter(socket.getOutputStream(), true, StandardCharsets.UTF_8);
+        }
+
+        private String send(String command) throws IOException {
+            out.println(command);
+            StringBuilder response = new StringBuilder();
+            String line;
+            while (!(line = in.readLine()).equals(".")) {
+                response.append(line.startsWith(".") ? line.substring(1) : line).append("\n");
+            }
+            return response.toString();
+        }
+
+        @Override
+        public void close() throws IOException {
+            socket.close();
+        }
+    }
+
+    /**
+     * Tests if each user only sees their own tasks, including after their tasks were dropped from memory.
+     *
+     * @throws IOException If the server could not be reached.
+     * @throws BooException If the tasks could not be saved.
+     */
+    @Test
+    public void tenantTest(@TempDir Path tempDir) throws IOException, BooException {
+        Server server = new Server(tempDir, 1);
+        int port = server.start(0);
+        try {
+            try (Client alice = new Client(port)) {
+                assertTrue(alice.send("list").startsWith("Oops! Boo needs to know who you are first"));
+                assertEquals("Hello alice! What can Boo do for you today?\n", alice.send("user alice"));
+                alice.send("todo read book");
+            }
+            try (Client bob = new Client(port)) {
+                bob.send("user bob");
+                bob.send("todo buy groceries");
+                assertEquals("Oh no! Boo could not find any tasks that contain that keyword :(\n",
+                        bob.send("find book"));
+                assertTrue(bob.send("stats off").startsWith("Oops! Boo's timings are shared by everyone"));
+            }
+            try (Client alice = new Client(port)) {
+                alice.send("user alice");
+                assertTrue(alice.send("list").startsWith("These are the tasks you have:\n1. [T][ ] read book\n\n"));
+                assertEquals("NOOO please don't go!! Boo will miss you :( Come back soon!!\n", alice.send("bye"));
+            }
+        } finally {
+            server.stop();
+        }
+    }
+
+    /**
+     * Tests if stopping the server closes open connections and keeps their later commands from being carried out.
+     *
+     * @throws IOException If the server could not be reached.
+     * @throws BooException If the tasks could not be saved or loaded.
+     */
+    @Test
+    public void stopTest(@TempDir Path tempDir) throws IOException, BooException {
+        Server server = new Server(tempDir, 10);
+        int port = server.start(0);
+        try (Client alice = new Client(port)) {
+            alice.send("user alice");
+            alice.send("todo read book");
+            server.stop();
+            alice.out.println("todo buy groceries");
+            String line;
+            try {
+                line = alice.in.readLine();
+            } catch (IOException e) {
+                line = null;
+            }
+            assertNull(line);
+        }
+        assertEquals(1, new SegmentedStorage(tempDir.resolve("alice").resolve("tasks").toString(), null)
+                .loadTasksFromFile().size());
+    }
+}
@@ -2,12 +2,14 @@ package boo.misc;
 
 import boo.task.Task;
 
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 
 /**
  * Represents a simple implementation of the Storage class that is used for unit testing.
  * No tasks are saved into a hard drive.
- * There are only 2 tasks present in the tasksMap.
+ * There are only 2 tasks present in the task list.
  */
 public class StorageStub extends Storage{
 
@@ -23,10 +25,10 @@ public class StorageStub extends Storage{
      * Mock saveTask method.
      * Nothing is saved in the hard disk.
      *
-     * @param tasksMap List of tasks.
+     * @param tasks List of tasks.
      */
     @Override
-    public void saveTasksToFile(HashMap<Integer, Task> tasksMap){
+    public void saveTasksToFile(Collection<Task> tasks){
     }
 
     /**
@@ -34,10 +36,10 @@ public class StorageStub extends Storage{
      * Only two tasks are present in the list of tasks.
      */
     @Override
-    public HashMap<Integer, Task> loadTasksFromFile(){
-       HashMap<Integer, Task> tasksMap = new HashMap<>();
-       tasksMap.put(1, new Task("Assignment"));
-       tasksMap.put(2, new Task("Assignment"));
-       return tasksMap;
+    public List<Task> loadTasksFromFile(){
+       List<Task> tasks = new ArrayList<>();
+       tasks.add(new Task("Assignment"));
+       tasks.add(new Task("Assignment"));
+       return tasks;
     }
 }
@@ -0,0 +1,184 @@
+package boo.misc;
+
+import boo.task.Deadline;
+import boo.task.Event;
+import boo.task.Task;
+import boo.task.TaskList;
+import boo.task.Todo;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Used to test methods in the Storage class.
+ */
+public class StorageTest {
+    @TempDir
+    Path tempDir;
+
+    /**
+     * Tests if changes recorded in the journal are restored when the tasks are loaded again.
+     *
+     * @throws BooException If the tasks could not be saved or loaded.
+     */
+    @Test
+    public void journalReplayTest() throws BooException {
+        String filePath = tempDir.resolve("Boo.txt").toString();
+        TaskList taskList = new TaskList(new Storage(filePath, true), new Ui());
+        taskList.addTask(new Deadline("return book", "02/02/2025"));
+        taskList.addTask(new Todo("homework"));
+        taskList.addTask(new Todo("laundry"));
+        taskList.markAsDone("mark 3");
+        taskList.deleteTask("delete 1");
+
+        String expected = new Ui().printTaskHistory(taskList.getTasks());
+        TaskList reloadedTaskList = new TaskList(new Storage(filePath, true), new Ui());
+        assertEquals(expected, new Ui().printTaskHistory(reloadedTaskList.getTasks()));
+    }
+
+    /**
+     * Tests if the journal is folded into the task file once it passes the compaction threshold.
+     *
+     * @throws BooException If the tasks could not be saved or loaded.
+     */
+    @Test
+    public void journalCompactionTest() throws BooException {
+        String filePath = tempDir.resolve("Boo.txt").toString();
+        Storage storage = new Storage(filePath, true, 100);
+        TaskList taskList = new TaskList(storage, new Ui());
+        for (int i = 0; i < 20; i++) {
+            taskList.addTask(new Todo("task " + i));
+        }
+        storage.awaitCompaction();
+        taskList.markAsDone("mark 7");
+        taskList.addTask(new Todo("task 20"));
+        storage.awaitCompaction();
+
+        String expected = new Ui().printTaskHistory(taskList.getTasks());
+        assertEquals(expected, new Ui().printTaskHistory(new Storage(filePath, true).loadTasksFromFile()));
+        // Without compaction, every task would still be in the journal only
+        assertFalse(new Storage(filePath).loadTasksFromFile().isEmpty());
+    }
+
+    /**
+     * Tests if invalid lines are reported by their byte offsets while the other lines are still parsed.
+     *
+     * @throws Exception If the file could not be written.
+     */
+    @Test
+    public void invalidLineOffsetTest() throws Exception {
+        Path filePath = tempDir.resolve("Boo.txt");
+        Files.writeString(filePath, "taskID: 1 || Todo task || isDone: false || homework\n"
+                + "not a task\n"
+                + "taskID: 3 || Todo task || isDone: false || laundry\n");
+
+        Exception exception = assertThrows(BooException.class,
+                () -> new Storage(filePath.toString()).loadTasksFromFile());
+        assertEquals("Oh no! Boo found 1 invalid task(s) in the file.\nAt byte 52: not a task\n",
+                exception.getMessage());
+    }
+
+    /**
+     * Tests if every kind of task is parsed from its line, including dates with upper case AM/PM.
+     *
+     * @throws Exception If the file could not be written or loaded.
+     */
+    @Test
+    public void parseLineTest() throws Exception {
+        Path filePath = tempDir.resolve("Boo.txt");
+        Files.writeString(filePath, "taskID: 1 || Todo task || isDone: true || homework\n"
+                + "taskID: 2 || Deadline task || isDone: false || return book (by: 02 Feb 2023 12:00 am)\n"
+                + "taskID: 3 || Event task || isDone: false || Netball "
+                + "(from: 29 Mar 2025 4:05 PM to: 29 Mar 2025 11:30 pm)\n");
+
+        List<Task> tasks = new Storage(filePath.toString()).loadTasksFromFile();
+        assertEquals("[T][X] homework", tasks.get(0).toString());
+        assertEquals(LocalDateTime.of(2023, 2, 2, 0, 0), tasks.get(1).getStartDate());
+        assertEquals("return book", tasks.get(1).getDescription());
+        Event event = (Event) tasks.get(2);
+        assertEquals(LocalDateTime.of(2025, 3, 29, 16, 5), event.getStartDate());
+        assertEquals(LocalDateTime.of(2025, 3, 29, 23, 30), event.getEndDate());
+        assertEquals("Netball", event.getDescription());
+    }
+
+    /**
+     * Tests if a burst of changes is only saved once the number of waiting changes reaches the threshold,
+     * or once the changes are flushed.
+     *
+     * @throws BooException If the tasks could not be saved or loaded.
+     */
+    @Test
+    public void writeBehindTest() throws BooException {
+        String filePath = tempDir.resolve("Boo.txt").toString();
+        Storage storage = new Storage(filePath);
+        storage.enableWriteBehind(60_000, 3);
+        TaskList taskList = new TaskList(storage, new Ui());
+        taskList.addTask(new Todo("homework"));
+        taskList.addTask(new Todo("laundry"));
+        assertEquals(0, new Storage(filePath).loadTasksFromFile().size());
+
+        taskList.markAsDone("mark 1");
+        storage.flush();
+        assertEquals("[T][X] homework", new Storage(filePath).loadTasksFromFile().get(0).toString());
+
+        taskList.deleteTask("delete 2");
+        storage.flush();
+        assertEquals(1, new Storage(filePath).loadTasksFromFile().size());
+    }
+
+    /**
+     * Tests if a burst of changes is appended to the journal in journal mode, instead of rewriting the task file.
+     *
+     * @throws Exception If the tasks could not be saved or loaded.
+     */
+    @Test
+    public void journaledWriteBehindTest() throws Exception {
+        String filePath = tempDir.resolve("Boo.txt").toString();
+        Storage storage = new Storage(filePath, true);
+        storage.enableWriteBehind(60_000, 100);
+        TaskList taskList = new TaskList(storage, new Ui());
+        taskList.addTask(new Todo("homework"));
+        taskList.addTask(new Todo("laundry"));
+        taskList.markAsDone("mark 2");
+        storage.flush();
+
+        assertFalse(Files.exists(Path.of(filePath)));
+        assertEquals(4, Files.readAllLines(Path.of(filePath + ".journal")).size());
+        List<Task> tasks = new Storage(filePath, true).loadTasksFromFile();
+        assertEquals(2, tasks.size());
+        assertEquals("[T][X] laundry", tasks.get(1).toString());
+    }
+
+    /**
+     * Tests if tasks archived over several runs are all read back, and if a cut-off member left behind by an
+     * earlier crash is ignored and then written over.
+     *
+     * @throws Exception If the tasks could not be archived or loaded.
+     */
+    @Test
+    public void archiveTest() throws Exception {
+        Storage storage = new Storage(tempDir.resolve("Boo.txt").toString());
+        storage.archiveTasks(List.of(new Todo("homework")));
+        Path archivePath = tempDir.resolve("Boo.txt.archive.gz");
+        long archiveSize = Files.size(archivePath);
+        Files.write(archivePath, new byte[] {0x1f, (byte) 0x8b, 8}, StandardOpenOption.APPEND);
+        assertEquals(1, new Storage(tempDir.resolve("Boo.txt").toString()).loadArchivedTasks().size());
+
+        storage.archiveTasks(List.of(new Todo("laundry"), new Todo("groceries")));
+        List<Task> archivedTasks = new Storage(tempDir.resolve("Boo.txt").toString()).loadArchivedTasks();
+        assertEquals(3, archivedTasks.size());
+        assertEquals("[T][ ] groceries", archivedTasks.get(2).toString());
+        assertTrue(Files.size(archivePath) > archiveSize);
+    }
+}
@@ -0,0 +1,63 @@
+package boo.task;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Used to test methods in the IntervalTree class.
+ */
+public class IntervalTreeTest {
+    private static final LocalDateTime FIRST_DATE = LocalDateTime.of(2025, 1, 1, 0, 0);
+
+    /**
+     * Tests if random inserts, removals and range queries match a scan over a plain list.
+     */
+    @Test
+    public void findOverlappingTest() {
+        Random random = new Random(42);
+        IntervalTree tree = IntervalTree.EMPTY;
+        List<Task> tasks = new ArrayList<>();
+        List<LocalDateTime[]> intervals = new ArrayList<>();
+        List<Long> sequences = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            if (!tasks.isEmpty() && random.nextInt(4) == 0) {
+                int index = random.nextInt(tasks.size());
+                tree = tree.remove(intervals.get(index)[0], sequences.get(index));
+                tasks.remove(index);
+                intervals.remove(index);
+                sequences.remove(index);
+            } else {
+                LocalDateTime start = FIRST_DATE.plusHours(random.nextInt(1000));
+                LocalDateTime end = start.plusHours(random.nextInt(3) == 0 ? 0 : random.nextInt(100));
+                Task task = new Todo("task " + i);
+                tree = tree.insert(task, start, end, i);
+                tasks.add(task);
+                intervals.add(new LocalDateTime[] {start, end});
+                sequences.add((long) i);
+            }
+        }
+
+        for (int i = 0; i < 100; i++) {
+            LocalDateTime from = FIRST_DATE.plusHours(random.nextInt(1100));
+            LocalDateTime to = from.plusHours(random.nextInt(50));
+            List<Task> found = tree.findOverlapping(from, to);
+            int expectedCount = 0;
+            for (LocalDateTime[] interval : intervals) {
+                if (!interval[0].isAfter(to) && !interval[1].isBefore(from)) {
+                    expectedCount++;
+                }
+            }
+            assertEquals(expectedCount, found.size());
+            for (Task task : found) {
+                LocalDateTime[] interval = intervals.get(tasks.indexOf(task));
+                assertEquals(true, !interval[0].isAfter(to) && !interval[1].isBefore(from));
+            }
+        }
+    }
+}
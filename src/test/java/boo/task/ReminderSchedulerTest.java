@@ -0,0 +1,81 @@
+package boo.task;
+
+import boo.misc.BooException;
+import boo.misc.Ui;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Used to test methods in the ReminderScheduler class.
+ */
+public class ReminderSchedulerTest {
+
+    /**
+     * Represents a clock that only moves when it is told to.
+     */
+    private static class ManualClock extends Clock {
+        private LocalDateTime now;
+
+        private ManualClock(LocalDateTime now) {
+            this.now = now;
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now.toInstant(ZoneOffset.UTC);
+        }
+    }
+
+    /**
+     * Tests if reminders are sent once they are due, and not for tasks that are done or deleted.
+     *
+     * @throws BooException If a date could not be parsed.
+     */
+    @Test
+    public void sendDueRemindersTest() throws BooException {
+        ManualClock clock = new ManualClock(LocalDateTime.of(2025, 3, 3, 9, 0));
+        ReminderScheduler reminders = new ReminderScheduler(new Ui(), clock);
+        Deadline essay = new Deadline("essay", "03/03/2025 1200");
+        Event lecture = new Event("lecture", "03/03/2025 1000", "03/03/2025 1200");
+        Deadline quiz = new Deadline("quiz", "03/03/2025 1100");
+        Deadline lab = new Deadline("lab", "03/03/2025 0800");
+        reminders.schedule(essay, 0);
+        reminders.schedule(lecture, 1);
+        reminders.schedule(quiz, 2);
+        reminders.schedule(lab, 3);
+        reminders.cancel(2);
+
+        assertEquals(List.of(), reminders.sendDueReminders());
+        clock.now = LocalDateTime.of(2025, 3, 3, 9, 50);
+        assertEquals(List.of("Psst! Boo is here to remind you that this task starts in 10 minutes:\n  "
+                + lecture + "\n"), reminders.sendDueReminders());
+        assertEquals(List.of(), reminders.sendDueReminders());
+
+        essay.setAsDone();
+        reminders.schedule(essay, 0);
+        essay.setAsNotDone();
+        clock.now = LocalDateTime.of(2025, 3, 3, 11, 30);
+        assertEquals(List.of(), reminders.sendDueReminders());
+        reminders.schedule(essay, 0);
+        assertEquals(List.of("Psst! Boo is here to remind you that this task is due in 30 minutes:\n  "
+                + essay + "\n"), reminders.sendDueReminders());
+    }
+}
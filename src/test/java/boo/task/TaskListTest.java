@@ -2,12 +2,22 @@ package boo.task;
 
 
 import boo.misc.BooException;
+import boo.misc.Storage;
 import boo.misc.StorageStub;
+import boo.misc.Ui;
 import boo.misc.UiStub;
 
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 /**
  * Used to test methods in the TaskList class.
@@ -37,18 +47,238 @@ public class TaskListTest {
         assertEquals(expectedMessage, exception.getMessage());
 
         // Test if a task is deleted
-        int currentMapSize = taskList.getTaskMap().size();
+        int currentMapSize = taskList.getTasks().size();
         taskList.deleteTask("delete 1");
         String expectedMessage3 = "Got it! Boo has removed this task:\n "
                 + "[T] [ ] Assignment" + "\n" + "\nYAY!!! You are now only left with " + 1 + " tasks!\n"
                 + "Keep up the good work!\n";
 
-        assertEquals(currentMapSize - 1, taskList.getTaskMap().size());
+        assertEquals(currentMapSize - 1, taskList.getTasks().size());
 
         // Test if method works with capitalised "Delete"
-        int currentMapSize2 = taskList.getTaskMap().size();
+        int currentMapSize2 = taskList.getTasks().size();
         taskList.deleteTask("Delete 1");
-        assertEquals(currentMapSize2 - 1, taskList.getTaskMap().size());
+        assertEquals(currentMapSize2 - 1, taskList.getTasks().size());
+    }
+
+    /**
+     * Tests if the method findTask works with single keywords and with AND/OR queries.
+     *
+     * @throws BooException If no keyword is provided.
+     */
+    @Test
+    public void findTaskTest() throws BooException {
+        TaskList taskList = new TaskList(new StorageStub(), new UiStub());
+        taskList.addTask(new Todo("read book"));
+        taskList.addTask(new Todo("return library book"));
+
+        assertEquals("Here are the matching tasks in your list:\n"
+                + "1. [T][ ] read book\n2. [T][ ] return library book\n", taskList.findTask("find BOOK"));
+        assertEquals("Here are the matching tasks in your list:\n"
+                + "1. [T][ ] return library book\n", taskList.findTask("find book AND library"));
+        assertEquals("Here are the matching tasks in your list:\n"
+                + "1. [ ] Assignment\n2. [ ] Assignment\n3. [T][ ] read book\n",
+                taskList.findTask("find sign OR read"));
+        assertEquals("Oh no! Boo could not find any tasks that contain that keyword :(\n",
+                taskList.findTask("find laundry"));
+    }
+
+    /**
+     * Tests if a batch of changes is only saved once committed, and discarded when rolled back.
+     *
+     * @throws BooException If the tasks could not be saved or loaded.
+     */
+    @Test
+    public void batchTest(@TempDir Path tempDir) throws BooException {
+        String filePath = tempDir.resolve("Boo.txt").toString();
+        TaskList taskList = new TaskList(new Storage(filePath, true), new Ui());
+        taskList.beginBatch();
+        taskList.addTask(new Todo("homework"));
+        taskList.addTask(new Todo("laundry"));
+        taskList.markAsDone("mark 2");
+        assertEquals(0, new Storage(filePath, true).loadTasksFromFile().size());
+        taskList.commitBatch();
+        assertEquals(2, new Storage(filePath, true).loadTasksFromFile().size());
+
+        taskList.beginBatch();
+        taskList.deleteTask("delete 1");
+        taskList.rollbackBatch();
+        assertEquals(2, taskList.getTasks().size());
+        assertEquals("[T][X] laundry", taskList.getTasks().toArray()[1].toString());
+        assertEquals(2, new Storage(filePath, true).loadTasksFromFile().size());
+    }
+
+    /**
+     * Tests if deadlines and events are found by the dates they fall on.
+     *
+     * @throws BooException If a date could not be parsed.
+     */
+    @Test
+    public void dateRangeTest() throws BooException {
+        TaskList taskList = new TaskList(new StorageStub(), new UiStub());
+        taskList.addTask(new Deadline("return book", "03/03/2025 1800"));
+        taskList.addTask(new Deadline("essay", "10/03/2025"));
+        taskList.addTask(new Event("Korea trip", "01/03/2025", "05/03/2025"));
+
+        assertEquals("Here are the tasks due before 10/03/2025:\n"
+                + "1. [D][ ] return book (by: 03 Mar 2025 6:00 PM)\n",
+                taskList.findTasksDueBefore("due before 10/03/2025"));
+        assertEquals("Here are the tasks on 03/03/2025:\n"
+                + "1. [E][ ] Korea trip (from: 01 Mar 2025 12:00 AM to: 05 Mar 2025 12:00 AM)\n"
+                + "2. [D][ ] return book (by: 03 Mar 2025 6:00 PM)\n",
+                taskList.findTasksOn("on 03/03/2025"));
+        assertEquals("Here are the tasks between 06/03/2025 and 10/03/2025:\n"
+                + "1. [D][ ] essay (by: 10 Mar 2025 12:00 AM)\n",
+                taskList.findTasksBetween("between 06/03/2025 and 10/03/2025"));
+
+        taskList.deleteTask("delete 5");
+        assertEquals("Yay! Boo could not find any tasks between 06/03/2025 and 10/03/2025. Time to relax!\n",
+                taskList.findTasksBetween("between 06/03/2025 and 10/03/2025"));
+    }
+
+    /**
+     * Tests if tasks can be listed and found while another thread is changing them.
+     *
+     * @throws Exception If a change failed or a reader thread failed.
+     */
+    @Test
+    public void concurrentReadTest() throws Exception {
+        TaskList taskList = new TaskList(new StorageStub(), new Ui());
+        AtomicBoolean isWriting = new AtomicBoolean(true);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        Thread[] readers = new Thread[4];
+        for (int i = 0; i < readers.length; i++) {
+            readers[i] = new Thread(() -> {
+                try {
+                    while (isWriting.get()) {
+                        String matches = taskList.findTask("find book");
+                        int count = matches.startsWith("Oh no!") ? 0 : (int) matches.lines().count() - 1;
+                        assertTrue(count <= 500, "Tasks should only be found once");
+                        assertTrue(taskList.listTasks("list").contains("Assignment"));
+                    }
+                } catch (Throwable e) {
+                    failure.compareAndSet(null, e);
+                }
+            });
+            readers[i].start();
+        }
+
+        for (int i = 0; i < 500; i++) {
+            taskList.addTask(new Todo("read book " + i));
+        }
+        for (int i = 3; i <= 502; i++) {
+            taskList.markAsDone("mark " + i);
+        }
+        isWriting.set(false);
+        for (Thread reader : readers) {
+            reader.join();
+        }
+
+        if (failure.get() != null) {
+            throw new AssertionError(failure.get());
+        }
+        String matches = taskList.findTask("find book");
+        assertEquals(501, matches.lines().count());
+        assertEquals(500, matches.lines().filter(line -> line.contains("[X]")).count());
+    }
+
+    /**
+     * Tests if changes can be undone and redone, and if the saved tasks follow along.
+     *
+     * @throws BooException If a change could not be undone or redone.
+     */
+    @Test
+    public void undoRedoTest(@TempDir Path tempDir) throws BooException {
+        String filePath = tempDir.resolve("Boo.txt").toString();
+        TaskList taskList = new TaskList(new Storage(filePath, true), new Ui());
+        taskList.addTask(new Todo("read book"));
+        taskList.addTask(new Todo("buy groceries"));
+        taskList.markAsDone("mark 1");
+        taskList.deleteTask("delete 2");
+        String original = taskList.listTasks("list");
+
+        assertEquals("Whoosh! Boo has undone deleting this task:\n  [T][ ] buy groceries\n", taskList.undo("undo"));
+        assertEquals("Whoosh! Boo has undone marking this task:\n  [T][ ] read book\n", taskList.undo("undo"));
+        assertEquals("Here are the matching tasks in your list:\n1. [T][ ] read book\n",
+                taskList.findTask("find book"));
+        assertEquals(taskList.listTasks("list"),
+                new TaskList(new Storage(filePath, true), new Ui()).listTasks("list"));
+
+        assertEquals("Okay! Boo has redone marking this task:\n  [T][X] read book\n", taskList.redo("redo"));
+        taskList.redo("redo");
+        assertThrows(BooException.class, () -> taskList.redo("redo"));
+        assertEquals(original, taskList.listTasks("list"));
+        assertEquals(original, new TaskList(new Storage(filePath, true), new Ui()).listTasks("list"));
+
+        taskList.undo("undo");
+        taskList.addTask(new Todo("return book"));
+        assertThrows(BooException.class, () -> taskList.redo("redo"));
+    }
+
+    /**
+     * Tests if tasks and matches can be shown a page at a time, and if invalid pages are rejected.
+     *
+     * @throws BooException If the tasks could not be added or shown.
+     */
+    @Test
+    public void pageTest(@TempDir Path tempDir) throws BooException {
+        TaskList taskList = new TaskList(new Storage(tempDir.resolve("Boo.txt").toString()), new Ui());
+        for (int i = 1; i <= 41; i++) {
+            taskList.addTask(new Todo("task " + i));
+        }
+
+        String firstPage = taskList.listTasks("list page 1");
+        assertTrue(firstPage.startsWith("These are the tasks you have (page 1 of 3):\n1. [T][ ] task 1\n"));
+        assertTrue(firstPage.contains("20. [T][ ] task 20\n"));
+        assertFalse(firstPage.contains("21. "));
+        String lastPage = taskList.listTasks("list page 3");
+        assertTrue(lastPage.startsWith("These are the tasks you have (page 3 of 3):\n41. [T][ ] task 41\n\n"));
+        assertEquals("Oh no! Boo could not find page 4.\nThere are only 3 pages.\n",
+                assertThrows(BooException.class, () -> taskList.listTasks("list page 4")).getMessage());
+        assertThrows(BooException.class, () -> taskList.listTasks("list page 0"));
+        assertEquals("Oops! Boo needs your page number to be an integer!\n",
+                assertThrows(BooException.class, () -> taskList.listTasks("list page two")).getMessage());
+        assertThrows(BooException.class, () -> taskList.listTasks("list pages 2"));
+
+        assertEquals("Here are the matching tasks in your list (page 3 of 3):\n41. [T][ ] task 41\n",
+                taskList.findTask("find task page 3"));
+        assertEquals("Oh no! Boo could not find page 4.\nThere are only 3 pages.\n",
+                assertThrows(BooException.class, () -> taskList.findTask("find task page 4")).getMessage());
+        // A page that is not a number is taken as part of the keyword
+        assertEquals("Oh no! Boo could not find any tasks that contain that keyword :(\n",
+                taskList.findTask("find task page two"));
+    }
+
+    /**
+     * Tests if done tasks are moved into the archive, by command and by age, and can still be found there.
+     *
+     * @throws BooException If the tasks could not be archived or found.
+     */
+    @Test
+    public void archiveTest(@TempDir Path tempDir) throws BooException {
+        String filePath = tempDir.resolve("Boo.txt").toString();
+        TaskList taskList = new TaskList(new Storage(filePath, true), new Ui());
+        taskList.addTask(new Todo("read book"));
+        taskList.addTask(new Todo("return book"));
+        taskList.addTask(new Deadline("book report", "02/02/2023"));
+        taskList.addTask(new Event("book fair", "05/03/2099", "06/03/2099"));
+        taskList.markAsDone("mark 1");
+        taskList.markAsDone("mark 3");
+
+        new TaskList(new Storage(filePath, true), new Ui()).archiveStaleTasks(30);
+        TaskList reloadedTaskList = new TaskList(new Storage(filePath, true), new Ui());
+        assertEquals("Here are the matching tasks in your archive:\n1. [D][X] book report (by: 02 Feb 2023 12:00 AM)\n",
+                reloadedTaskList.findTask("find --archived report"));
+
+        assertEquals("All tidy! Boo has archived 1 done task.\n"
+                + "You can still find archived tasks with 'find --archived <KEYWORD>'.\n",
+                reloadedTaskList.archiveTasks("archive"));
+        assertThrows(BooException.class, () -> reloadedTaskList.archiveTasks("archive"));
+        assertEquals("Here are the matching tasks in your list:\n1. [T][ ] return book\n2. [E][ ] book fair "
+                + "(from: 05 Mar 2099 12:00 AM to: 06 Mar 2099 12:00 AM)\n", reloadedTaskList.findTask("find book"));
+        assertEquals(2, new Storage(filePath, true).loadTasksFromFile().size());
+        assertEquals(2, new Storage(filePath, true).loadArchivedTasks().size());
+        assertTrue(reloadedTaskList.findTask("find --archived read OR report").contains("2. [T][X] read book"));
     }
 
 }
@@ -39,4 +39,23 @@ public class TaskTest {
         assertFalse(task.isDone(), "Task is no longer marked as done");
         assertEquals("[ ] Homework", task.toString());
     }
+
+    /**
+     * Tests if the cached display and storage strings are updated when the task is marked.
+     *
+     * @throws BooException If the deadline could not be parsed.
+     */
+    @Test
+    public void cachedStringsTest() throws BooException {
+        Deadline deadline = new Deadline("return book", "02/02/2025 1800");
+        String displayString = deadline.toString();
+        assertTrue(displayString == deadline.toString(), "Display string should be reused");
+        assertEquals("Deadline task || isDone: false || return book (by: " + deadline.getFormattedDeadline() + ")",
+                deadline.toStorageString());
+
+        deadline.setAsDone();
+        assertEquals("[D][X] return book (by: " + deadline.getFormattedDeadline() + ")", deadline.toString());
+        assertEquals("Deadline task || isDone: true || return book (by: " + deadline.getFormattedDeadline() + ")",
+                deadline.toStorageString());
+    }
 }
@@ -0,0 +1,67 @@
+package boo.task;
+
+import boo.misc.BooException;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * Used to test methods in the TaskTree class.
+ */
+public class TaskTreeTest {
+
+    /**
+     * Tests if tasks are kept in order of their dates, with tasks without dates first.
+     *
+     * @throws BooException If a date could not be parsed.
+     */
+    @Test
+    public void insertOrderTest() throws BooException {
+        TaskTree tree = TaskTree.EMPTY
+                .insert(new Deadline("second", "02/02/2025"), 0)
+                .insert(new Todo("first"), 1)
+                .insert(new Deadline("third", "02/02/2025"), 2)
+                .insert(new Deadline("zeroth", "01/01/2025"), 3);
+
+        assertEquals(4, tree.size());
+        assertEquals("first", tree.get(0).getDescription());
+        assertEquals("zeroth", tree.get(1).getDescription());
+        assertEquals("second", tree.get(2).getDescription());
+        assertEquals("third", tree.get(3).getDescription());
+    }
+
+    /**
+     * Tests if random inserts and removals by position match a plain list.
+     */
+    @Test
+    public void removeAtTest() {
+        Random random = new Random(42);
+        TaskTree tree = TaskTree.EMPTY;
+        List<Task> expected = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            if (!expected.isEmpty() && random.nextInt(3) == 0) {
+                int index = random.nextInt(expected.size());
+                assertEquals(expected.remove(index), tree.get(index));
+                tree = tree.removeAt(index);
+            } else {
+                Task task = new Todo("task " + i);
+                expected.add(task);
+                tree = tree.insert(task, i);
+            }
+        }
+
+        assertEquals(expected.size(), tree.size());
+        int fromIndex = expected.size() / 2;
+        Iterator<Task> iterator = tree.iterator(fromIndex);
+        for (int i = fromIndex; i < expected.size(); i++) {
+            assertEquals(expected.get(i), iterator.next());
+        }
+        assertFalse(iterator.hasNext());
+    }
+}